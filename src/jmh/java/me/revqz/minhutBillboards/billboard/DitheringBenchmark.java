@@ -0,0 +1,53 @@
+package me.revqz.minhutBillboards.billboard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Palette quantization of a wall-sized image in every dithering mode and colour
+ * matching, single-threaded. Matching only changes the lookup table, so every
+ * metric should cost the same per pixel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DitheringBenchmark {
+
+    @Param({"1x1", "4x3", "8x6", "16x12"})
+    public String wall;
+
+    @Param({"floyd_steinberg", "ordered", "none"})
+    public String mode;
+
+    @Param({"rgb", "oklab"})
+    public String matching;
+
+    private BufferedImage image;
+    private ColorDithering.ColorMatching colorMatching;
+
+    @Setup
+    public void setup() {
+        int[] size = SyntheticImages.wall(wall);
+        image = SyntheticImages.photo(size[0] * ImageLoader.MAP_SIZE, size[1] * ImageLoader.MAP_SIZE);
+        colorMatching = ColorDithering.ColorMatching.fromName(matching);
+        ColorDithering.getLookupTable(colorMatching);
+    }
+
+    @Benchmark
+    public byte[] dither() {
+        return switch (mode) {
+            case "ordered" -> ColorDithering.applyOrderedDithering(image, colorMatching);
+            case "none" -> ColorDithering.quantize(image, colorMatching);
+            default -> ColorDithering.applyFloydSteinbergDithering(image, colorMatching);
+        };
+    }
+}
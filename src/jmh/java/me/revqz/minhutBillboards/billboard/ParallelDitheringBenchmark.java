@@ -0,0 +1,43 @@
+package me.revqz.minhutBillboards.billboard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of the wavefront Floyd-Steinberg ditherer with its thread count. Workers
+ * come from the shared compute pool, which is sized to the cores, so compare within
+ * one machine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ParallelDitheringBenchmark {
+
+    @Param({"4x3", "8x6", "16x12"})
+    public String wall;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private BufferedImage image;
+
+    @Setup
+    public void setup() {
+        int[] size = SyntheticImages.wall(wall);
+        image = SyntheticImages.photo(size[0] * ImageLoader.MAP_SIZE, size[1] * ImageLoader.MAP_SIZE);
+    }
+
+    @Benchmark
+    public byte[] floydSteinberg() {
+        return ColorDithering.applyFloydSteinbergDithering(image, threads);
+    }
+}
@@ -0,0 +1,130 @@
+package me.revqz.minhutBillboards.billboard;
+
+import org.bukkit.map.MapCanvas;
+import org.bukkit.map.MapCursorCollection;
+import org.bukkit.map.MapFont;
+import org.bukkit.map.MapView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.awt.Color;
+import java.awt.Image;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drawing every tile of a wall from the tile arena onto map canvases: a full redraw,
+ * as after spawning or an update, and a 32x32 animation delta per tile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RendererBenchmark {
+
+    @Param({"1x1", "4x3", "8x6", "16x12"})
+    public String wall;
+
+    private BillboardMapRenderer[] renderers;
+    private TileAnimation.TileDelta[] deltas;
+    private final ArrayCanvas canvas = new ArrayCanvas();
+
+    @Setup
+    public void setup() {
+        int[] size = SyntheticImages.wall(wall);
+        int tiles = size[0] * size[1];
+        byte[] pixels = SyntheticImages.paletteIndices(ImageLoader.MAP_SIZE, ImageLoader.MAP_SIZE * tiles);
+
+        TileArena arena = TileArena.direct();
+        renderers = new BillboardMapRenderer[tiles];
+        deltas = new TileAnimation.TileDelta[tiles];
+        for (int i = 0; i < tiles; i++) {
+            byte[] tile = new byte[ImageLoader.TILE_BYTES];
+            System.arraycopy(pixels, i * ImageLoader.TILE_BYTES, tile, 0, ImageLoader.TILE_BYTES);
+            renderers[i] = new BillboardMapRenderer(arena, tile, null);
+            deltas[i] = new TileAnimation.TileDelta(48, 48, 32, 32, SyntheticImages.paletteIndices(32, 32));
+        }
+    }
+
+    @Benchmark
+    public ArrayCanvas fullRedraw() {
+        for (BillboardMapRenderer renderer : renderers) {
+            renderer.invalidate();
+            renderer.render(null, canvas, null);
+        }
+        return canvas;
+    }
+
+    @Benchmark
+    public ArrayCanvas animationDelta() {
+        for (int i = 0; i < renderers.length; i++) {
+            renderers[i].applyDelta(deltas[i]);
+            renderers[i].render(null, canvas, null);
+        }
+        return canvas;
+    }
+
+    /**
+     * Canvas that only records pixels, standing in for the server's map canvas.
+     */
+    @SuppressWarnings("deprecation")
+    public static final class ArrayCanvas implements MapCanvas {
+
+        private final byte[] pixels = new byte[ImageLoader.TILE_BYTES];
+
+        @Override
+        public MapView getMapView() {
+            return null;
+        }
+
+        @Override
+        public MapCursorCollection getCursors() {
+            return null;
+        }
+
+        @Override
+        public void setCursors(MapCursorCollection cursors) {
+        }
+
+        @Override
+        public void setPixelColor(int x, int y, Color color) {
+        }
+
+        @Override
+        public Color getPixelColor(int x, int y) {
+            return null;
+        }
+
+        @Override
+        public Color getBasePixelColor(int x, int y) {
+            return null;
+        }
+
+        @Override
+        public void setPixel(int x, int y, byte color) {
+            pixels[y * ImageLoader.MAP_SIZE + x] = color;
+        }
+
+        @Override
+        public byte getPixel(int x, int y) {
+            return pixels[y * ImageLoader.MAP_SIZE + x];
+        }
+
+        @Override
+        public byte getBasePixel(int x, int y) {
+            return 0;
+        }
+
+        @Override
+        public void drawImage(int x, int y, Image image) {
+        }
+
+        @Override
+        public void drawText(int x, int y, MapFont font, String text) {
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package me.revqz.minhutBillboards.billboard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling a 4K source down (or, for the largest wall, barely down) to wall size with
+ * each resize filter. {@code bicubic} is the Java2D path and ignores {@code threads}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ResizeBenchmark {
+
+    @Param({"1x1", "4x3", "8x6", "16x12"})
+    public String wall;
+
+    @Param({"lanczos", "area", "bicubic"})
+    public String filter;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private BufferedImage source;
+    private int widthBlocks;
+    private int heightBlocks;
+
+    @Setup
+    public void setup() {
+        int[] size = SyntheticImages.wall(wall);
+        widthBlocks = size[0];
+        heightBlocks = size[1];
+        source = SyntheticImages.photo(3840, 2160);
+    }
+
+    @Benchmark
+    public BufferedImage resize() {
+        return ImageLoader.resizeImage(source, widthBlocks, heightBlocks, filter, threads);
+    }
+}
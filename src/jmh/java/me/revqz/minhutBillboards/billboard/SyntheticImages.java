@@ -0,0 +1,56 @@
+package me.revqz.minhutBillboards.billboard;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * Deterministic stand-ins for real uploads, so benchmarks run offline and compare
+ * like with like between runs.
+ */
+final class SyntheticImages {
+
+    private SyntheticImages() {
+    }
+
+    /**
+     * Parses a {@code WIDTHxHEIGHT} wall size in blocks.
+     */
+    static int[] wall(String size) {
+        String[] parts = size.split("x");
+        return new int[] {Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+    }
+
+    /**
+     * Photo-like image: smooth gradients and soft shapes for dithering to work on,
+     * fine detail for resizers to alias on, and a little sensor-style noise.
+     */
+    static BufferedImage photo(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double u = (double) x / width;
+                double v = (double) y / height;
+                double ripple = Math.sin((u * u + v * v) * 400);
+                int r = channel(255 * u + 30 * ripple + random.nextGaussian() * 4);
+                int g = channel(255 * v + 30 * Math.sin(u * 60) + random.nextGaussian() * 4);
+                int b = channel(128 + 100 * Math.cos((u - v) * 9) + random.nextGaussian() * 4);
+                image.setRGB(x, y, 0xFF000000 | r << 16 | g << 8 | b);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Random palette indices for a whole wall, row-major.
+     */
+    static byte[] paletteIndices(int width, int height) {
+        byte[] pixels = new byte[width * height];
+        new Random(42).nextBytes(pixels);
+        return pixels;
+    }
+
+    private static int channel(double value) {
+        return (int) Math.max(0, Math.min(255, value));
+    }
+}
@@ -0,0 +1,42 @@
+package me.revqz.minhutBillboards.billboard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cutting a quantized wall into 128x128 map tiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TileSplitBenchmark {
+
+    @Param({"1x1", "4x3", "8x6", "16x12"})
+    public String wall;
+
+    private byte[] pixels;
+    private int widthBlocks;
+    private int heightBlocks;
+
+    @Setup
+    public void setup() {
+        int[] size = SyntheticImages.wall(wall);
+        widthBlocks = size[0];
+        heightBlocks = size[1];
+        pixels = SyntheticImages.paletteIndices(widthBlocks * ImageLoader.MAP_SIZE,
+                heightBlocks * ImageLoader.MAP_SIZE);
+    }
+
+    @Benchmark
+    public byte[][][] split() {
+        return ImageLoader.splitIntoTiles(pixels, widthBlocks, heightBlocks);
+    }
+}
@@ -1,7 +1,16 @@
 package me.revqz.minhutBillboards;
 
+import me.revqz.minhutBillboards.api.BillboardService;
 import me.revqz.minhutBillboards.billboard.BillboardManager;
+import me.revqz.minhutBillboards.billboard.BillboardServiceImpl;
+import me.revqz.minhutBillboards.billboard.ComputePool;
+import me.revqz.minhutBillboards.billboard.ImageExecutor;
+import me.revqz.minhutBillboards.billboard.TimerPool;
 import me.revqz.minhutBillboards.commands.BillboardCommand;
+import me.revqz.minhutBillboards.listeners.ChunkListener;
+import me.revqz.minhutBillboards.listeners.PlayerListener;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.File;
@@ -22,17 +31,28 @@ public final class MinhutBillboards extends JavaPlugin {
         }
 
         BillboardManager.getInstance();
+        // Warm the presets once the server is up, without holding up startup.
+        Bukkit.getScheduler().runTask(this, () -> BillboardManager.getInstance().prewarmPresets());
 
         BillboardCommand billboardCommand = new BillboardCommand();
         getCommand("billboard").setExecutor(billboardCommand);
         getCommand("billboard").setTabCompleter(billboardCommand);
 
+        getServer().getPluginManager().registerEvents(new ChunkListener(), this);
+        getServer().getPluginManager().registerEvents(new PlayerListener(), this);
+
+        getServer().getServicesManager().register(BillboardService.class, new BillboardServiceImpl(), this,
+                ServicePriority.Normal);
+
         getLogger().info("MinhutBillboards enabled!");
     }
 
     @Override
     public void onDisable() {
         BillboardManager.getInstance().shutdown();
+        ImageExecutor.getInstance().shutdown();
+        ComputePool.shutdown();
+        TimerPool.shutdown();
         getLogger().info("MinhutBillboards disabled!");
     }
 
@@ -0,0 +1,88 @@
+package me.revqz.minhutBillboards.api;
+
+import java.awt.image.BufferedImage;
+import java.util.Objects;
+
+/**
+ * An image to show on a billboard: a source the plugin loads itself, encoded image
+ * bytes, or an image that is already decoded. Billboards of the same size in one
+ * batch share the processing of equal images: sources are equal when the source
+ * strings are, bytes and decoded images only to the same instance.
+ */
+public final class BillboardImage {
+
+    private final String source;
+    private final byte[] bytes;
+    private final BufferedImage image;
+
+    private BillboardImage(String source, byte[] bytes, BufferedImage image) {
+        this.source = source;
+        this.bytes = bytes;
+        this.image = image;
+    }
+
+    /**
+     * A file in the plugin's {@code images} folder, a folder of numbered frames in it,
+     * or an http(s) URL, as accepted by {@code /billboard update}.
+     */
+    public static BillboardImage ofSource(String source) {
+        return new BillboardImage(Objects.requireNonNull(source, "source"), null, null);
+    }
+
+    /**
+     * Encoded image bytes in any format ImageIO reads; animated GIFs animate. The array
+     * is not copied, so don't modify it until the update completes.
+     */
+    public static BillboardImage ofBytes(byte[] bytes) {
+        return new BillboardImage(null, Objects.requireNonNull(bytes, "bytes"), null);
+    }
+
+    /**
+     * A decoded image. It is read on an image worker, so don't draw on it until the
+     * update completes.
+     */
+    public static BillboardImage ofImage(BufferedImage image) {
+        return new BillboardImage(null, null, Objects.requireNonNull(image, "image"));
+    }
+
+    /** The source, or {@code null} if this image wasn't given as one. */
+    public String getSource() {
+        return source;
+    }
+
+    /** The encoded bytes, or {@code null} if this image wasn't given as bytes. */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /** The decoded image, or {@code null} if this image wasn't given decoded. */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        return source != null && other instanceof BillboardImage image && source.equals(image.source);
+    }
+
+    @Override
+    public int hashCode() {
+        return source != null ? source.hashCode() : System.identityHashCode(this);
+    }
+
+    /**
+     * Short description for log messages.
+     */
+    public String describe() {
+        if (source != null) {
+            return source;
+        }
+        if (bytes != null) {
+            return bytes.length + " bytes";
+        }
+        return image.getWidth() + "x" + image.getHeight() + " image";
+    }
+}
@@ -0,0 +1,14 @@
+package me.revqz.minhutBillboards.api;
+
+import org.bukkit.block.BlockFace;
+
+import java.util.UUID;
+
+/**
+ * Where a billboard is and how big it is, as of when it was looked up.
+ *
+ * @param feedSource the live feed it shows, or {@code null} if it shows an image
+ */
+public record BillboardInfo(String name, UUID worldId, int originX, int originY, int originZ, BlockFace facing,
+        int width, int height, String feedSource) {
+}
@@ -0,0 +1,75 @@
+package me.revqz.minhutBillboards.api;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Lets other plugins create, update and remove billboards. Get it from Bukkit's
+ * {@link org.bukkit.plugin.ServicesManager}:
+ *
+ * <pre>{@code
+ * BillboardService billboards = Bukkit.getServicesManager().load(BillboardService.class);
+ * }</pre>
+ *
+ * <p>The operations may be called from any thread. World changes happen on the main
+ * thread, images are processed on the plugin's image workers, and the returned futures
+ * complete on the main thread. Names are case-insensitive. Futures fail with an
+ * {@link IllegalArgumentException} for an unknown or taken name, an
+ * {@link IllegalStateException} when an image can't be loaded, a
+ * {@link java.util.concurrent.RejectedExecutionException} when the image queue is full
+ * and a {@link java.util.concurrent.CancellationException} when the billboard is
+ * updated again, or its wall is rolled back, before they complete.
+ */
+public interface BillboardService {
+
+    /**
+     * Builds a billboard's wall over the next ticks, then shows its image, if it has one.
+     * If the image fails, the billboard stays up, blank.
+     */
+    CompletableFuture<Void> create(BillboardSpec spec);
+
+    /**
+     * Builds several billboards at once; their images are then processed in one
+     * {@link #updateAll batch}. No wall is started if a name is taken.
+     */
+    CompletableFuture<Void> createAll(Collection<BillboardSpec> specs);
+
+    /**
+     * Shows a new image on a billboard, stopping its live feed. Only the maps whose
+     * tiles changed are redrawn.
+     *
+     * @return a future of the number of tiles that changed
+     */
+    CompletableFuture<Integer> update(String name, BillboardImage image);
+
+    /**
+     * Shows new images on several billboards in one processing pass: each image is
+     * processed once per billboard size, however many billboards show it, and all the
+     * billboards change in the same tick.
+     *
+     * @return a future of the changed tile count per billboard name, -1 for billboards
+     *         that don't exist or whose image failed to load; billboards updated again
+     *         before it completes are left out
+     */
+    CompletableFuture<Map<String, Integer>> updateAll(Map<String, BillboardImage> images);
+
+    /**
+     * Removes a billboard right away and tears its wall down over the next ticks.
+     *
+     * @return a future completing once the wall is gone
+     */
+    CompletableFuture<Void> remove(String name);
+
+    /**
+     * Names of all billboards. Call on the main thread.
+     */
+    Set<String> getBillboardNames();
+
+    /**
+     * A billboard's position and size. Call on the main thread.
+     */
+    Optional<BillboardInfo> getBillboard(String name);
+}
@@ -0,0 +1,49 @@
+package me.revqz.minhutBillboards.api;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.block.BlockFace;
+
+import java.util.Objects;
+
+/**
+ * A billboard to create: a wall of {@code material} with its bottom corner at
+ * {@code origin}, running east when it faces north or south and south when it faces
+ * east or west, with maps on its {@code facing} side.
+ *
+ * @param image shown once the wall is built, or {@code null} to leave it blank
+ */
+public record BillboardSpec(String name, Location origin, BlockFace facing, int width, int height,
+        Material material, BillboardImage image) {
+
+    public BillboardSpec {
+        Objects.requireNonNull(name, "name");
+        Objects.requireNonNull(origin, "origin");
+        Objects.requireNonNull(facing, "facing");
+        Objects.requireNonNull(material, "material");
+        if (name.isBlank()) {
+            throw new IllegalArgumentException("Billboard name is empty");
+        }
+        if (origin.getWorld() == null) {
+            throw new IllegalArgumentException("Billboard origin has no world");
+        }
+        if (facing != BlockFace.NORTH && facing != BlockFace.SOUTH && facing != BlockFace.EAST
+                && facing != BlockFace.WEST) {
+            throw new IllegalArgumentException("Billboards face north, south, east or west, not " + facing);
+        }
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("Billboard size must be positive: " + width + "x" + height);
+        }
+        if (!material.isBlock()) {
+            throw new IllegalArgumentException("Not a block: " + material);
+        }
+    }
+
+    /**
+     * A spec for a black concrete wall, like {@code /billboard spawn} builds by default.
+     */
+    public BillboardSpec(String name, Location origin, BlockFace facing, int width, int height,
+            BillboardImage image) {
+        this(name, origin, facing, width, height, Material.BLACK_CONCRETE, image);
+    }
+}
@@ -0,0 +1,236 @@
+package me.revqz.minhutBillboards.billboard;
+
+import me.revqz.minhutBillboards.MinhutBillboards;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * Reads the frames of animated billboards: animated GIFs, or a folder of numbered
+ * images inside the {@code images} folder.
+ */
+public class AnimationLoader {
+
+    private static final String GIF_METADATA = "javax_imageio_gif_image_1.0";
+    private static final String GIF_STREAM_METADATA = "javax_imageio_gif_stream_1.0";
+
+    public record Frame(BufferedImage image, int delayTicks) {
+    }
+
+    public static boolean isGif(byte[] data) {
+        return data.length > 6 && data[0] == 'G' && data[1] == 'I' && data[2] == 'F' && data[3] == '8';
+    }
+
+    /**
+     * Decodes the frames of an animated GIF one at a time, composited onto the logical
+     * screen the way a browser would (frame offsets and disposal methods applied), and
+     * hands each to {@code sink} scaled down to fit within {@code maxWidth x maxHeight}
+     * before decoding the next.
+     *
+     * @return {@code false}, without delivering anything, if the GIF has fewer than two frames
+     * @throws IOException if it has more than {@code maxFrames}
+     */
+    public static boolean readGifFrames(byte[] data, int maxWidth, int maxHeight, int maxFrames,
+            Consumer<Frame> sink) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName("gif");
+            if (!readers.hasNext()) {
+                return false;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, false);
+
+                int screenWidth = -1;
+                int screenHeight = -1;
+                IIOMetadata streamMetadata = reader.getStreamMetadata();
+                if (streamMetadata != null) {
+                    Node screen = findChild(streamMetadata.getAsTree(GIF_STREAM_METADATA), "LogicalScreenDescriptor");
+                    if (screen != null) {
+                        screenWidth = intAttribute(screen, "logicalScreenWidth", -1);
+                        screenHeight = intAttribute(screen, "logicalScreenHeight", -1);
+                    }
+                }
+
+                BufferedImage canvas = null;
+                BufferedImage beforeFrame = null;
+                String previousDisposal = "none";
+                Rectangle previousArea = null;
+                int frameWidth = 0;
+                int frameHeight = 0;
+
+                int count = reader.getNumImages(true);
+                if (count < 2) {
+                    return false;
+                }
+                if (count > maxFrames) {
+                    throw new IOException("GIF has too many frames (" + count + ", limit " + maxFrames + ")");
+                }
+                for (int i = 0; i < count; i++) {
+                    ImageExecutor.checkCancelled();
+                    long start = PipelineMetrics.start();
+                    BufferedImage frame = reader.read(i);
+                    Node tree = reader.getImageMetadata(i).getAsTree(GIF_METADATA);
+                    Node descriptor = findChild(tree, "ImageDescriptor");
+                    Node control = findChild(tree, "GraphicControlExtension");
+
+                    int left = descriptor != null ? intAttribute(descriptor, "imageLeftPosition", 0) : 0;
+                    int top = descriptor != null ? intAttribute(descriptor, "imageTopPosition", 0) : 0;
+                    int delay = control != null ? intAttribute(control, "delayTime", 0) : 0;
+                    String disposal = control != null ? stringAttribute(control, "disposalMethod", "none") : "none";
+
+                    if (canvas == null) {
+                        int width = screenWidth > 0 ? screenWidth : frame.getWidth();
+                        int height = screenHeight > 0 ? screenHeight : frame.getHeight();
+                        if ((long) width * height > ImageLoader.getMaxSourcePixels()) {
+                            throw new IOException("GIF is too large (" + width + "x" + height + ")");
+                        }
+                        canvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+                        frameWidth = Math.min(width, Math.max(1, maxWidth));
+                        frameHeight = Math.min(height, Math.max(1, maxHeight));
+                    }
+
+                    Graphics2D g = canvas.createGraphics();
+                    if (previousArea != null && previousDisposal.equals("restoreToBackgroundColor")) {
+                        g.setComposite(AlphaComposite.Clear);
+                        g.fillRect(previousArea.x, previousArea.y, previousArea.width, previousArea.height);
+                        g.setComposite(AlphaComposite.SrcOver);
+                    } else if (beforeFrame != null && previousDisposal.equals("restoreToPrevious")) {
+                        g.setComposite(AlphaComposite.Src);
+                        g.drawImage(beforeFrame, 0, 0, null);
+                        g.setComposite(AlphaComposite.SrcOver);
+                    }
+
+                    beforeFrame = disposal.equals("restoreToPrevious") ? copy(canvas) : null;
+                    g.drawImage(frame, left, top, null);
+                    g.dispose();
+
+                    BufferedImage scaled = copy(canvas, frameWidth, frameHeight);
+                    previousDisposal = disposal;
+                    previousArea = new Rectangle(left, top, frame.getWidth(), frame.getHeight());
+                    PipelineMetrics.record(PipelineMetrics.Stage.DECODE, start);
+                    sink.accept(new Frame(scaled, toTicks(delay * 10)));
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Folder of numbered images, played in file name order.
+     */
+    public static File[] listSequence(File folder) {
+        File[] files = folder.listFiles(File::isFile);
+        if (files == null) {
+            return new File[0];
+        }
+        Arrays.sort(files, (a, b) -> compareNatural(a.getName(), b.getName()));
+        return files;
+    }
+
+    /**
+     * Decodes the frames of a sequence one at a time, subsampled towards
+     * {@code targetWidth x targetHeight} like still images, handing each to {@code sink}
+     * before decoding the next.
+     *
+     * @return the number of frames delivered; unreadable files are skipped
+     */
+    public static int readSequence(File[] files, int delayTicks, int targetWidth, int targetHeight,
+            Consumer<Frame> sink) throws IOException {
+        int count = 0;
+        for (File file : files) {
+            ImageExecutor.checkCancelled();
+            long start = PipelineMetrics.start();
+            BufferedImage image = ImageLoader.decodeImage(Files.readAllBytes(file.toPath()), file.getName(),
+                    targetWidth, targetHeight);
+            if (image == null) {
+                MinhutBillboards.getInstance().getLogger().warning("Skipping unreadable frame: " + file.getName());
+                continue;
+            }
+            PipelineMetrics.record(PipelineMetrics.Stage.DECODE, start);
+            sink.accept(new Frame(image, Math.max(1, delayTicks)));
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * GIF delays are in hundredths of a second; 0 means "as fast as possible",
+     * which browsers treat as 100ms, so do the same.
+     */
+    private static int toTicks(int delayMs) {
+        if (delayMs <= 10) {
+            delayMs = 100;
+        }
+        return Math.max(1, Math.round(delayMs / 50f));
+    }
+
+    private static int compareNatural(String a, String b) {
+        String digitsA = a.replaceAll("\\D", "");
+        String digitsB = b.replaceAll("\\D", "");
+        if (!digitsA.isEmpty() && !digitsB.isEmpty() && digitsA.length() < 10 && digitsB.length() < 10) {
+            int result = Integer.compare(Integer.parseInt(digitsA), Integer.parseInt(digitsB));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return a.compareTo(b);
+    }
+
+    private static BufferedImage copy(BufferedImage image) {
+        return copy(image, image.getWidth(), image.getHeight());
+    }
+
+    private static BufferedImage copy(BufferedImage image, int width, int height) {
+        BufferedImage copy = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = copy.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        if (width != image.getWidth() || height != image.getHeight()) {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(image, 0, 0, width, height, null);
+        } else {
+            g.drawImage(image, 0, 0, null);
+        }
+        g.dispose();
+        return copy;
+    }
+
+    private static Node findChild(Node parent, String name) {
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (name.equals(child.getNodeName())) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private static String stringAttribute(Node node, String name, String fallback) {
+        NamedNodeMap attributes = node.getAttributes();
+        Node attribute = attributes != null ? attributes.getNamedItem(name) : null;
+        return attribute != null ? attribute.getNodeValue() : fallback;
+    }
+
+    private static int intAttribute(Node node, String name, int fallback) {
+        try {
+            return Integer.parseInt(stringAttribute(node, name, String.valueOf(fallback)));
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package me.revqz.minhutBillboards.billboard;
+
+import me.revqz.minhutBillboards.MinhutBillboards;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Plays animated billboards. Each tick, billboards whose frame is due push only the
+ * tiles that change in the next frame, and only their changed region, to the renderers.
+ */
+class BillboardAnimator {
+
+    private final Map<BillboardData, Playback> playing = new IdentityHashMap<>();
+    private BukkitTask task;
+
+    void start(BillboardData data, TileAnimation animation, BillboardMapRenderer[] renderers) {
+        playing.put(data, new Playback(data.width, data.height, animation, renderers));
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(MinhutBillboards.getInstance(), this::tick, 1L, 1L);
+        }
+    }
+
+    void stop(BillboardData data) {
+        playing.remove(data);
+        if (playing.isEmpty() && task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    int getPlayingCount() {
+        return playing.size();
+    }
+
+    void shutdown() {
+        playing.clear();
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private void tick() {
+        long start = PipelineMetrics.start();
+        for (Playback playback : playing.values()) {
+            playback.tick();
+        }
+        PipelineMetrics.record(PipelineMetrics.Stage.ANIMATION_TICK, start);
+    }
+
+    private static final class Playback {
+
+        private final int width;
+        private final int height;
+        private final TileAnimation animation;
+        private final BillboardMapRenderer[] renderers;
+        private int frame = 0;
+        private int ticksLeft;
+
+        Playback(int width, int height, TileAnimation animation, BillboardMapRenderer[] renderers) {
+            this.width = width;
+            this.height = height;
+            this.animation = animation;
+            this.renderers = renderers;
+            this.ticksLeft = animation.getDelayTicks(0);
+        }
+
+        void tick() {
+            if (--ticksLeft > 0) {
+                return;
+            }
+
+            frame = (frame + 1) % animation.getFrameCount();
+            ticksLeft = animation.getDelayTicks(frame);
+
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    BillboardMapRenderer renderer = renderers[x + y * width];
+                    TileAnimation.TileDelta delta = animation.getDelta(frame, x, y);
+                    if (renderer != null && delta != null) {
+                        renderer.applyDelta(delta);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package me.revqz.minhutBillboards.billboard;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.BlockFace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Everything needed to find a spawned billboard again: where its wall is, which
+ * frames and maps make it up, and which cached tile set it shows.
+ */
+class BillboardData {
+
+    final UUID worldId;
+    final int originX;
+    final int originY;
+    final int originZ;
+    final BlockFace facing;
+    final BlockFace widthDirection;
+    final int width;
+    final int height;
+    /** Frame per tile, indexed {@code x + y * width}; {@code null} where no frame was placed. */
+    final UUID[] frameIds;
+    /** Shared map id per tile, indexed like {@link #frameIds}; -1 until tiles are assigned. */
+    final int[] mapIds;
+    /** {@link TileRegistry} content hash of the tile on each map. */
+    final long[] tileHashes;
+    String tileKey;
+    /** {@link LiveFeed} source shown instead of a fixed image, or {@code null}. */
+    String feedSource;
+    /**
+     * Tiles currently drawn on the maps, without their pixels, which live in the renderers'
+     * arena slots; {@code null} while none of the billboard's chunks are loaded.
+     */
+    TileSet tiles;
+    /** Renderers attached to the maps, indexed like {@link #mapIds}; {@code null} while released. */
+    BillboardMapRenderer[] renderers;
+    boolean loadingTiles;
+
+    BillboardData(UUID worldId, int originX, int originY, int originZ, BlockFace facing, BlockFace widthDirection,
+            int width, int height) {
+        this.worldId = worldId;
+        this.originX = originX;
+        this.originY = originY;
+        this.originZ = originZ;
+        this.facing = facing;
+        this.widthDirection = widthDirection;
+        this.width = width;
+        this.height = height;
+        this.frameIds = new UUID[width * height];
+        this.mapIds = new int[width * height];
+        this.tileHashes = new long[width * height];
+        Arrays.fill(mapIds, -1);
+    }
+
+    List<UUID> getFrameIds() {
+        List<UUID> ids = new ArrayList<>(frameIds.length);
+        for (UUID frameId : frameIds) {
+            if (frameId != null) {
+                ids.add(frameId);
+            }
+        }
+        return ids;
+    }
+
+    static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Keys of every chunk holding a wall block or one of the frames in front of it.
+     */
+    Set<Long> getChunkKeys() {
+        Set<Long> keys = new HashSet<>();
+        for (int w = 0; w < width; w++) {
+            int x = originX + widthDirection.getModX() * w;
+            int z = originZ + widthDirection.getModZ() * w;
+            keys.add(chunkKey(x >> 4, z >> 4));
+            keys.add(chunkKey((x + facing.getModX()) >> 4, (z + facing.getModZ()) >> 4));
+        }
+        return keys;
+    }
+
+    /**
+     * Intersects a ray with the front face of the wall, where the frames hang.
+     *
+     * @return distance along the (normalised) ray to the hit, or -1 if the ray
+     *         misses, hits from behind, or is further than {@code maxDistance}
+     */
+    double intersect(double ox, double oy, double oz, double dx, double dy, double dz, double maxDistance) {
+        double normalX = facing.getModX();
+        double normalZ = facing.getModZ();
+        double denominator = dx * normalX + dz * normalZ;
+        if (denominator >= 0) {
+            return -1;
+        }
+
+        // Front face of the wall blocks: +1 on positive-facing axes.
+        double planeX = originX + (normalX > 0 ? 1 : 0);
+        double planeZ = originZ + (normalZ > 0 ? 1 : 0);
+        double t = normalX != 0 ? (planeX - ox) / dx : (planeZ - oz) / dz;
+        if (t < 0 || t > maxDistance) {
+            return -1;
+        }
+
+        double hitY = oy + dy * t;
+        if (hitY < originY || hitY > originY + height) {
+            return -1;
+        }
+
+        double along = widthDirection.getModX() != 0 ? ox + dx * t : oz + dz * t;
+        int start = widthDirection.getModX() != 0 ? originX : originZ;
+        int end = start + (widthDirection.getModX() + widthDirection.getModZ()) * (width - 1);
+        double min = Math.min(start, end);
+        double max = Math.max(start, end) + 1;
+        if (along < min || along > max) {
+            return -1;
+        }
+
+        return t;
+    }
+
+    List<Location> getBlockLocations(World world) {
+        List<Location> locations = new ArrayList<>(width * height);
+        for (int y = 0; y < height; y++) {
+            for (int w = 0; w < width; w++) {
+                locations.add(new Location(world,
+                        originX + widthDirection.getModX() * w,
+                        originY + y,
+                        originZ + widthDirection.getModZ() * w));
+            }
+        }
+        return locations;
+    }
+}
@@ -1,19 +1,38 @@
 package me.revqz.minhutBillboards.billboard;
 
 import me.revqz.minhutBillboards.MinhutBillboards;
+import me.revqz.minhutBillboards.api.BillboardImage;
+import me.revqz.minhutBillboards.api.BillboardInfo;
 import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.FluidCollisionMode;
 import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.ItemFrame;
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.MapMeta;
+import org.bukkit.map.MapView;
 import org.bukkit.scheduler.BukkitTask;
 import org.bukkit.scoreboard.Scoreboard;
 import org.bukkit.scoreboard.Team;
+import org.bukkit.util.RayTraceResult;
+import org.bukkit.util.Vector;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 public class BillboardManager {
 
@@ -22,15 +41,51 @@ public class BillboardManager {
     private final Map<String, BillboardData> billboards = new HashMap<>();
     private final Map<UUID, String> frameToBoard = new HashMap<>();
     private final Map<UUID, String> playerLookingAt = new HashMap<>();
+    private final Map<String, Integer> glowViewers = new HashMap<>();
+    private final Map<UUID, Boolean> pendingGlow = new LinkedHashMap<>();
+    private final Map<UUID, ItemFrame> frameHandles = new HashMap<>();
+    private final Map<UUID, Map<Long, Set<String>>> chunkIndex = new HashMap<>();
+    private final Map<String, CompletableFuture<TileSet>> imageJobs = new HashMap<>();
+    private final Set<WallJob> wallJobs = new LinkedHashSet<>();
+    private final Map<String, LiveFeed> feeds = new HashMap<>();
+
+    private final BillboardAnimator animator = new BillboardAnimator();
+    private final MapSendScheduler sendScheduler = new MapSendScheduler();
+    private final TileRegistry registry = new TileRegistry(sendScheduler, createArena());
+    private final Prewarmer prewarmer = new Prewarmer();
 
     private BukkitTask glowTask;
     private Team glowTeam;
 
+    private BukkitTask saveTask;
+    private long saveVersion;
+    private final Object saveLock = new Object();
+    private long savedVersion;
+
     private static final String BILLBOARD_TAG = "minhut_billboard";
 
     private BillboardManager() {
         setupGlowTeam();
         startGlowTask();
+        restoreBillboards();
+    }
+
+    /**
+     * Off-heap tile store from {@code memory.tile_arena}: {@code direct} memory, or
+     * {@code mapped} from a scratch file in the cache folder.
+     */
+    private static TileArena createArena() {
+        String mode = MinhutBillboards.getInstance().getConfig().getString("memory.tile_arena", "direct");
+        if (mode.equalsIgnoreCase("mapped")) {
+            File file = new File(new File(MinhutBillboards.getInstance().getDataFolder(), "cache"), "tiles.arena");
+            try {
+                return TileArena.mapped(file);
+            } catch (IOException e) {
+                MinhutBillboards.getInstance().getLogger().warning("Failed to map the tile arena, using direct "
+                        + "memory instead: " + e.getMessage());
+            }
+        }
+        return TileArena.direct();
     }
 
     public static BillboardManager getInstance() {
@@ -69,39 +124,26 @@ public class BillboardManager {
             if (billboards.isEmpty())
                 return;
 
+            long start = PipelineMetrics.start();
             for (Player player : Bukkit.getOnlinePlayers()) {
                 checkPlayerLooking(player, range);
             }
+            flushGlowChanges();
+            PipelineMetrics.record(PipelineMetrics.Stage.GLOW_TASK, start);
         }, 5L, 5L);
     }
 
     private void checkPlayerLooking(Player player, int range) {
         String currentlyLookingAt = playerLookingAt.get(player.getUniqueId());
-        String nowLookingAt = null;
-
-        Block targetBlock = player.getTargetBlockExact(range);
-        if (targetBlock != null) {
-            for (Entity entity : targetBlock.getWorld().getNearbyEntities(
-                    targetBlock.getLocation().add(0.5, 0.5, 0.5), 2.5, 2.5, 2.5)) {
-                if (entity instanceof ItemFrame frame && frame.getScoreboardTags().contains(BILLBOARD_TAG)) {
-                    String billboard = frameToBoard.get(frame.getUniqueId());
-                    if (billboard != null) {
-                        nowLookingAt = billboard;
-                        break;
-                    }
-                }
-            }
-        }
+
+        String nowLookingAt = findLookedAtBillboard(player, range);
 
         if (!Objects.equals(currentlyLookingAt, nowLookingAt)) {
             if (currentlyLookingAt != null) {
-                setGlowState(currentlyLookingAt, false);
+                removeViewer(currentlyLookingAt);
             }
             if (nowLookingAt != null) {
-                setGlowState(nowLookingAt, true);
-            }
-
-            if (nowLookingAt != null) {
+                addViewer(nowLookingAt);
                 playerLookingAt.put(player.getUniqueId(), nowLookingAt);
             } else {
                 playerLookingAt.remove(player.getUniqueId());
@@ -109,75 +151,887 @@ public class BillboardManager {
         }
     }
 
+    /**
+     * Glow is reference counted per billboard, so it only changes when the first
+     * viewer arrives or the last one looks away.
+     */
+    private void addViewer(String billboardName) {
+        if (glowViewers.merge(billboardName, 1, Integer::sum) == 1) {
+            setGlowState(billboardName, true);
+        }
+    }
+
+    private void removeViewer(String billboardName) {
+        Integer remaining = glowViewers.computeIfPresent(billboardName, (name, count) -> count > 1 ? count - 1 : null);
+        if (remaining == null) {
+            setGlowState(billboardName, false);
+        }
+    }
+
+    public void handlePlayerQuit(Player player) {
+        String lookingAt = playerLookingAt.remove(player.getUniqueId());
+        if (lookingAt != null) {
+            removeViewer(lookingAt);
+        }
+        sendScheduler.forget(player.getUniqueId());
+        registry.forget(player.getUniqueId());
+    }
+
+    /**
+     * Resolves the billboard a player is looking at by walking the chunk columns
+     * along their line of sight and intersecting the ray with each indexed wall.
+     * A block raycast is only made to confirm a hit isn't hidden behind terrain.
+     */
+    private String findLookedAtBillboard(Player player, int range) {
+        Map<Long, Set<String>> worldIndex = chunkIndex.get(player.getWorld().getUID());
+        if (worldIndex == null || worldIndex.isEmpty()) {
+            return null;
+        }
+
+        Location eye = player.getEyeLocation();
+        Vector direction = eye.getDirection();
+        double ox = eye.getX();
+        double oy = eye.getY();
+        double oz = eye.getZ();
+        double dx = direction.getX();
+        double dy = direction.getY();
+        double dz = direction.getZ();
+
+        String closest = null;
+        double closestDistance = range;
+        Set<String> tested = new HashSet<>();
+
+        for (long chunk : chunksAlongRay(ox, oz, dx, dz, range)) {
+            Set<String> names = worldIndex.get(chunk);
+            if (names == null) {
+                continue;
+            }
+            for (String name : names) {
+                if (!tested.add(name)) {
+                    continue;
+                }
+                BillboardData data = billboards.get(name);
+                double distance = data != null ? data.intersect(ox, oy, oz, dx, dy, dz, closestDistance) : -1;
+                if (distance >= 0) {
+                    closest = name;
+                    closestDistance = distance;
+                }
+            }
+        }
+
+        if (closest != null && closestDistance > 0.1) {
+            RayTraceResult blocked = player.getWorld().rayTraceBlocks(eye, direction, closestDistance - 0.1,
+                    FluidCollisionMode.NEVER, true);
+            if (blocked != null && blocked.getHitBlock() != null) {
+                return null;
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Chunk keys crossed by a horizontal ray, in order (2D grid traversal over 16-block cells).
+     */
+    private static List<Long> chunksAlongRay(double ox, double oz, double dx, double dz, double range) {
+        List<Long> chunks = new ArrayList<>();
+        int cx = (int) Math.floor(ox / 16);
+        int cz = (int) Math.floor(oz / 16);
+        int endX = (int) Math.floor((ox + dx * range) / 16);
+        int endZ = (int) Math.floor((oz + dz * range) / 16);
+        int stepX = dx > 0 ? 1 : -1;
+        int stepZ = dz > 0 ? 1 : -1;
+
+        double deltaX = dx != 0 ? Math.abs(16 / dx) : Double.POSITIVE_INFINITY;
+        double deltaZ = dz != 0 ? Math.abs(16 / dz) : Double.POSITIVE_INFINITY;
+        double nextX = dx != 0 ? ((stepX > 0 ? (cx + 1) * 16 : cx * 16) - ox) / dx : Double.POSITIVE_INFINITY;
+        double nextZ = dz != 0 ? ((stepZ > 0 ? (cz + 1) * 16 : cz * 16) - oz) / dz : Double.POSITIVE_INFINITY;
+
+        chunks.add(BillboardData.chunkKey(cx, cz));
+        while ((cx != endX || cz != endZ) && chunks.size() < 64) {
+            if (nextX < nextZ) {
+                cx += stepX;
+                nextX += deltaX;
+            } else {
+                cz += stepZ;
+                nextZ += deltaZ;
+            }
+            chunks.add(BillboardData.chunkKey(cx, cz));
+        }
+        return chunks;
+    }
+
+    /**
+     * Queues a glow change for every frame of a billboard; it is applied by
+     * {@link #flushGlowChanges()} together with the other changes of this tick.
+     */
     private void setGlowState(String billboardName, boolean glowing) {
         BillboardData data = billboards.get(billboardName);
         if (data == null)
             return;
 
-        for (UUID frameId : data.frameIds) {
-            Entity entity = Bukkit.getEntity(frameId);
-            if (entity instanceof ItemFrame frame && frame.isValid()) {
+        for (UUID frameId : data.getFrameIds()) {
+            pendingGlow.put(frameId, glowing);
+        }
+    }
+
+    private void flushGlowChanges() {
+        if (pendingGlow.isEmpty()) {
+            return;
+        }
+
+        List<String> added = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        for (Map.Entry<UUID, Boolean> change : pendingGlow.entrySet()) {
+            boolean glowing = change.getValue();
+            ItemFrame frame = getFrame(change.getKey());
+            if (frame != null) {
                 frame.setGlowing(glowing);
+            }
+            (glowing ? added : removed).add(change.getKey().toString());
+        }
+        pendingGlow.clear();
 
-                String entry = frame.getUniqueId().toString();
-                try {
-                    if (glowing) {
-                        if (!glowTeam.hasEntry(entry)) {
-                            glowTeam.addEntry(entry);
-                        }
-                    } else {
-                        if (glowTeam.hasEntry(entry)) {
-                            glowTeam.removeEntry(entry);
-                        }
-                    }
-                } catch (Exception e) {
-                }
+        try {
+            if (!removed.isEmpty()) {
+                glowTeam.removeEntries(removed);
             }
+            if (!added.isEmpty()) {
+                glowTeam.addEntries(added);
+            }
+        } catch (Exception e) {
+        }
+    }
+
+    /**
+     * Returns a cached handle to a billboard frame, looking it up again only after
+     * the cached one was invalidated or became invalid.
+     */
+    private ItemFrame getFrame(UUID frameId) {
+        ItemFrame frame = frameHandles.get(frameId);
+        if (frame != null && frame.isValid()) {
+            return frame;
         }
+
+        frameHandles.remove(frameId);
+        if (Bukkit.getEntity(frameId) instanceof ItemFrame found && found.isValid()) {
+            frameHandles.put(frameId, found);
+            return found;
+        }
+        return null;
     }
 
-    public void registerBillboard(String name, List<ItemFrame> frames, List<Location> blockLocations) {
+    /**
+     * Registers the frames of a freshly spawned wall, indexed {@code [x][y]} with
+     * {@code y = 0} at the bottom. Frames stay empty until {@link #applyTiles} gives
+     * them a map.
+     */
+    public void registerBillboard(String name, World world, Location origin, BlockFace facing,
+            BlockFace widthDirection, int width, int height, ItemFrame[][] frames) {
         String lowerName = name.toLowerCase();
-        BillboardData data = new BillboardData();
+        BillboardData data = new BillboardData(world.getUID(), origin.getBlockX(), origin.getBlockY(),
+                origin.getBlockZ(), facing, widthDirection, width, height);
 
-        for (ItemFrame frame : frames) {
-            UUID id = frame.getUniqueId();
-            data.frameIds.add(id);
-            frameToBoard.put(id, lowerName);
+        int count = 0;
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                ItemFrame frame = frames[x][y];
+                if (frame == null) {
+                    continue;
+                }
+                UUID id = frame.getUniqueId();
+                data.frameIds[x + y * width] = id;
+                frameToBoard.put(id, lowerName);
 
-            frame.addScoreboardTag(BILLBOARD_TAG);
+                frame.addScoreboardTag(BILLBOARD_TAG);
+                frameHandles.put(id, frame);
+                count++;
+            }
         }
 
-        data.blockLocations.addAll(blockLocations);
         billboards.put(lowerName, data);
+        indexChunks(lowerName, data);
+        saveBillboards();
 
         MinhutBillboards.getInstance().getLogger()
-                .info("Registered billboard: " + lowerName + " with " + frames.size() + " frames");
+                .info("Registered billboard: " + lowerName + " with " + count + " frames");
     }
 
-    public void removeBillboard(String name) {
+    /**
+     * Shows processed tiles on a billboard's maps and remembers their cache key
+     * so the billboard can be restored after a restart.
+     */
+    public void applyTiles(String name, TileSet tiles) {
+        BillboardData data = billboards.get(name.toLowerCase());
+        if (data == null)
+            return;
+
+        swapTiles(data, tiles);
+        saveBillboards();
+    }
+
+    /**
+     * Processes a new image for a billboard at its size and swaps it in, redrawing
+     * only the maps whose tile content actually changed. A job still running for
+     * the same billboard is cancelled, since its result would be replaced anyway,
+     * and a live feed on it is stopped. If a preset warm-up is processing the same
+     * image at this size, its result is used instead of starting another job.
+     *
+     * @return a future completing on the main thread with the number of changed
+     *         tiles, or -1 if the billboard is gone or the image failed to load. It
+     *         fails with a {@link RejectedExecutionException} when
+     *         the image queue is full and with a
+     *         {@link java.util.concurrent.CancellationException} when superseded.
+     */
+    public CompletableFuture<Integer> updateBillboard(String name, String source) {
         String lowerName = name.toLowerCase();
-        BillboardData data = billboards.remove(lowerName);
+        BillboardData data = billboards.get(lowerName);
+        if (data == null) {
+            return CompletableFuture.completedFuture(-1);
+        }
 
-        if (data == null)
+        cancelImageJob(lowerName);
+        endFeed(lowerName, data);
+        CompletableFuture<TileSet> warming = prewarmer.join(source, data.width, data.height);
+        CompletableFuture<TileSet> job = warming != null ? warming
+                : ImageLoader.loadAndProcessImage(source, data.width, data.height);
+        imageJobs.put(lowerName, job);
+
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        job.whenComplete((tiles, error) -> Bukkit.getScheduler().runTask(MinhutBillboards.getInstance(), () -> {
+            imageJobs.remove(lowerName, job);
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else if (tiles == null || billboards.get(lowerName) != data) {
+                result.complete(-1);
+            } else {
+                int changed = swapTiles(data, tiles);
+                saveBillboards();
+                result.complete(changed);
+            }
+        }));
+        return result;
+    }
+
+    /**
+     * Updates several billboards in a single image job, like {@link #updateBillboard}
+     * does for one. Each distinct image is processed once per billboard size, however
+     * many billboards show it, and all the billboards are swapped in the same tick
+     * with one save.
+     *
+     * @return a future completing on the main thread with the number of changed tiles
+     *         per billboard, or -1 for billboards that are gone or whose image failed to
+     *         load; billboards updated again meanwhile are left out. It fails with a
+     *         {@link RejectedExecutionException} when the image
+     *         queue is full.
+     */
+    public CompletableFuture<Map<String, Integer>> updateBillboards(Map<String, BillboardImage> images) {
+        record Request(BillboardImage image, int width, int height) {
+        }
+
+        Map<String, Integer> results = new LinkedHashMap<>();
+        Map<String, BillboardData> targets = new LinkedHashMap<>();
+        Map<String, Request> requests = new HashMap<>();
+        // Equal images (the same source, or the same bytes or image instance) are processed once per size.
+        Set<Request> distinct = new LinkedHashSet<>();
+        for (Map.Entry<String, BillboardImage> entry : images.entrySet()) {
+            String lowerName = entry.getKey().toLowerCase();
+            BillboardData data = billboards.get(lowerName);
+            if (data == null) {
+                results.put(lowerName, -1);
+                continue;
+            }
+            cancelImageJob(lowerName);
+            endFeed(lowerName, data);
+            Request request = new Request(entry.getValue(), data.width, data.height);
+            targets.put(lowerName, data);
+            requests.put(lowerName, request);
+            distinct.add(request);
+        }
+        if (targets.isEmpty()) {
+            return CompletableFuture.completedFuture(results);
+        }
+
+        String ditheringMode = ImageLoader.getDitheringMode();
+        String resizeFilter = ImageLoader.getResizeFilter();
+        String colorMatching = ImageLoader.getColorMatching();
+        int threads = ImageLoader.getDitheringThreads();
+        CompletableFuture<Map<Request, TileSet>> batch = ImageExecutor.getInstance().submit(() -> {
+            Map<Request, TileSet> processed = new HashMap<>();
+            for (Request request : distinct) {
+                long start = PipelineMetrics.start();
+                processed.put(request, processImage(request.image(), request.width(), request.height(),
+                        ditheringMode, resizeFilter, colorMatching, threads));
+                PipelineMetrics.record(PipelineMetrics.Stage.PIPELINE, start);
+            }
+            return processed;
+        });
+
+        // One job per billboard, so updating or removing one cancels only its own result.
+        Map<String, CompletableFuture<TileSet>> jobs = new HashMap<>();
+        for (String name : targets.keySet()) {
+            Request request = requests.get(name);
+            CompletableFuture<TileSet> job = batch.thenApply(processed -> processed.get(request));
+            jobs.put(name, job);
+            imageJobs.put(name, job);
+        }
+        // Abandon the batch once every billboard in it has been updated again or removed.
+        for (CompletableFuture<TileSet> job : jobs.values()) {
+            job.whenComplete((tiles, error) -> {
+                if (job.isCancelled() && jobs.values().stream().allMatch(CompletableFuture::isCancelled)) {
+                    batch.cancel(false);
+                }
+            });
+        }
+
+        CompletableFuture<Map<String, Integer>> result = new CompletableFuture<>();
+        batch.whenComplete((processed, error) -> Bukkit.getScheduler().runTask(MinhutBillboards.getInstance(), () -> {
+            boolean swapped = false;
+            for (Map.Entry<String, BillboardData> target : targets.entrySet()) {
+                String name = target.getKey();
+                CompletableFuture<TileSet> job = jobs.get(name);
+                imageJobs.remove(name, job);
+                if (job.isCancelled()) {
+                    continue;
+                }
+                TileSet tiles = error == null ? processed.get(requests.get(name)) : null;
+                if (tiles == null || billboards.get(name) != target.getValue()) {
+                    results.put(name, -1);
+                } else {
+                    results.put(name, swapTiles(target.getValue(), tiles));
+                    swapped = true;
+                }
+            }
+            if (swapped) {
+                saveBillboards();
+            }
+
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(results);
+            }
+        }));
+        return result;
+    }
+
+    /**
+     * Processes one image of a batch; a failure only affects the billboards showing it.
+     */
+    private static TileSet processImage(BillboardImage image, int width, int height, String ditheringMode,
+            String resizeFilter, String colorMatching, int threads) {
+        try {
+            if (image.getSource() != null) {
+                return ImageLoader.loadTiles(image.getSource(), width, height, ditheringMode, resizeFilter,
+                        colorMatching, threads);
+            }
+            if (image.getBytes() != null) {
+                return ImageLoader.processSource(image.getBytes(), image.describe(), width, height, ditheringMode,
+                        resizeFilter, colorMatching, threads);
+            }
+            return ImageLoader.processDecoded(image.getImage(), width, height, ditheringMode, resizeFilter,
+                    colorMatching, threads);
+        } catch (CancellationException e) {
+            throw e;
+        } catch (Exception e) {
+            MinhutBillboards.getInstance().getLogger()
+                    .warning("Failed to process " + image.describe() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void cancelImageJob(String name) {
+        CompletableFuture<TileSet> job = imageJobs.remove(name);
+        if (job != null) {
+            job.cancel(false);
+        }
+    }
+
+    /**
+     * Shows a {@link LiveFeed} on a billboard instead of its image, replacing an earlier
+     * feed. The feed is saved with the billboard and resumes after a restart.
+     *
+     * @return false if there is no such billboard
+     */
+    public boolean startFeed(String name, String source) {
+        String lowerName = name.toLowerCase();
+        BillboardData data = billboards.get(lowerName);
+        if (data == null) {
+            return false;
+        }
+
+        cancelImageJob(lowerName);
+        endFeed(lowerName, data);
+        data.feedSource = source;
+        runFeed(lowerName, data);
+        saveBillboards();
+        return true;
+    }
+
+    /**
+     * Stops a billboard's live feed; its last frame stays up until the next restart.
+     *
+     * @return false if the billboard had no feed
+     */
+    public boolean stopFeed(String name) {
+        String lowerName = name.toLowerCase();
+        BillboardData data = billboards.get(lowerName);
+        if (data == null || data.feedSource == null) {
+            return false;
+        }
+        endFeed(lowerName, data);
+        saveBillboards();
+        return true;
+    }
+
+    private void runFeed(String name, BillboardData data) {
+        LiveFeed feed = new LiveFeed(name, data.feedSource, data.width, data.height,
+                (source, frame) -> Bukkit.getScheduler().runTask(MinhutBillboards.getInstance(),
+                        () -> showFeedFrame(name, data, source, frame)));
+        feeds.put(name, feed);
+        feed.setPaused(!isLoaded(data, null));
+        feed.start();
+    }
+
+    private void endFeed(String name, BillboardData data) {
+        LiveFeed feed = feeds.remove(name);
+        if (feed != null) {
+            feed.stop();
+        }
+        data.feedSource = null;
+    }
+
+    /**
+     * Pushes a processed feed frame to the renderers: only the changed region of the
+     * tiles that changed, or every tile for a feed's first frame.
+     */
+    private void showFeedFrame(String name, BillboardData data, LiveFeed feed, LiveFeed.Frame frame) {
+        if (feeds.get(name) != feed || billboards.get(name) != data) {
+            return;
+        }
+
+        // Deltas only apply on top of this feed's own tiles, never over a cached image.
+        if (frame.deltas() == null || data.renderers == null || data.tileKey != null) {
+            swapTiles(data, new TileSet(null, data.width, data.height, frame.tiles()));
+            saveBillboards();
+        } else {
+            for (int x = 0; x < data.width; x++) {
+                for (int y = 0; y < data.height; y++) {
+                    TileAnimation.TileDelta delta = frame.deltas()[x][y];
+                    BillboardMapRenderer renderer = data.renderers[x + y * data.width];
+                    if (delta != null && renderer != null) {
+                        renderer.applyDelta(delta);
+                    }
+                }
+            }
+        }
+        feed.markShown();
+    }
+
+    /**
+     * Points each tile of a billboard at the shared map holding its new content.
+     * Only tiles whose content hash changed get a different map, so unchanged maps
+     * are not redrawn or resent to clients. Callers save the billboards afterwards.
+     */
+    private int swapTiles(BillboardData data, TileSet tiles) {
+        World world = Bukkit.getWorld(data.worldId);
+        if (world == null) {
+            return -1;
+        }
+
+        animator.stop(data);
+        setTileKey(data, tiles.key());
+        keepTiles(tiles);
+        boolean attached = data.renderers != null;
+        int width = Math.min(data.width, tiles.width());
+        int height = Math.min(data.height, tiles.height());
+
+        int changed = 0;
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                int index = x + y * data.width;
+                byte[] tile = tiles.tile(x, y);
+                if (data.frameIds[index] == null || tile == null) {
+                    continue;
+                }
+
+                // Animations and feeds redraw their maps in place, so they can't share them.
+                long hash = tiles.isAnimated() || data.feedSource != null ? TileRegistry.PRIVATE
+                        : TileRegistry.hash(tile);
+                if (data.mapIds[index] >= 0 && hash != TileRegistry.PRIVATE && hash == data.tileHashes[index]) {
+                    continue;
+                }
+
+                changed++;
+                if (data.mapIds[index] >= 0) {
+                    if (attached && data.renderers[index] != null) {
+                        registry.detach(data.mapIds[index]);
+                        data.renderers[index] = null;
+                    }
+                    registry.release(data.mapIds[index]);
+                }
+                data.mapIds[index] = registry.acquire(hash, world);
+                data.tileHashes[index] = hash;
+                syncFrame(data, index);
+            }
+        }
+
+        if (attached || isLoaded(data, null) || !TileCache.contains(data.tileKey)) {
+            attachTiles(data, tiles);
+        } else {
+            // Nothing is drawn, the new tiles load with the chunks.
+            data.tiles = null;
+        }
+
+        return changed;
+    }
+
+    /**
+     * Points a billboard at another cached tile set, pinning it in the cache in place
+     * of the old one so it can always be read back after the chunks unload.
+     */
+    private void setTileKey(BillboardData data, String key) {
+        if (Objects.equals(data.tileKey, key)) {
             return;
+        }
+        TileCache.release(data.tileKey);
+        TileCache.pin(key);
+        data.tileKey = key;
+    }
 
-        setGlowState(lowerName, false);
+    /**
+     * Writes a billboard's tiles to the cache off-thread if they aren't there yet, e.g.
+     * when the cache is disabled and the pipeline didn't store them.
+     */
+    private void keepTiles(TileSet tiles) {
+        if (tiles.key() != null && !TileCache.contains(tiles.key())) {
+            ImageExecutor.getInstance().submitInternal(() -> {
+                TileCache.store(tiles);
+                return null;
+            }).exceptionally(error -> {
+                if (error instanceof RejectedExecutionException) {
+                    // Too much internal work waiting; try again next tick.
+                    Bukkit.getScheduler().runTask(MinhutBillboards.getInstance(), () -> keepTiles(tiles));
+                }
+                return null;
+            });
+        }
+    }
 
-        for (UUID frameId : data.frameIds) {
+    /**
+     * Attaches the renderers missing from a billboard's maps; ones already attached
+     * keep drawing.
+     */
+    private void attachTiles(BillboardData data, TileSet tiles) {
+        animator.stop(data);
+        data.tiles = tiles.withoutPixels();
+        if (data.renderers == null) {
+            data.renderers = new BillboardMapRenderer[data.width * data.height];
+        }
+        int width = Math.min(data.width, tiles.width());
+        int height = Math.min(data.height, tiles.height());
+
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                int index = x + y * data.width;
+                if (data.renderers[index] == null && data.mapIds[index] >= 0 && tiles.tile(x, y) != null) {
+                    data.renderers[index] = registry.attach(data.mapIds[index], tiles.tile(x, y));
+                }
+                if (data.renderers[index] != null) {
+                    // Centre of the frame, half a block in front of the wall block.
+                    data.renderers[index].setAnchor(data.worldId,
+                            data.originX + data.widthDirection.getModX() * x + 0.5 + data.facing.getModX() * 0.5,
+                            data.originY + y + 0.5,
+                            data.originZ + data.widthDirection.getModZ() * x + 0.5 + data.facing.getModZ() * 0.5);
+                }
+            }
+        }
+
+        if (tiles.isAnimated() && tiles.width() == data.width && tiles.height() == data.height) {
+            animator.start(data, tiles.animation(), data.renderers);
+        }
+    }
+
+    private void detachTiles(BillboardData data) {
+        if (data.renderers == null) {
+            return;
+        }
+        for (int i = 0; i < data.renderers.length; i++) {
+            if (data.renderers[i] != null) {
+                registry.detach(data.mapIds[i]);
+            }
+        }
+        data.renderers = null;
+    }
+
+    /**
+     * Drops a billboard's renderers and tile data. Tiles that could not be read
+     * back from the cache stay attached, since there would be no way to redraw them.
+     */
+    private void releaseTiles(BillboardData data) {
+        if (data.tiles == null || !TileCache.contains(data.tileKey)) {
+            return;
+        }
+
+        animator.stop(data);
+        detachTiles(data);
+        data.tiles = null;
+    }
+
+    /**
+     * Puts the map assigned to a tile into its frame. Frames that aren't loaded are
+     * fixed up by {@link #handleEntitiesLoad} once they are.
+     */
+    private void syncFrame(BillboardData data, int index) {
+        ItemFrame frame = data.frameIds[index] != null ? getFrame(data.frameIds[index]) : null;
+        MapView mapView = data.mapIds[index] >= 0 ? Bukkit.getMap(data.mapIds[index]) : null;
+        if (frame == null || mapView == null) {
+            return;
+        }
+
+        if (frame.getItem() != null && frame.getItem().getItemMeta() instanceof MapMeta current
+                && current.hasMapView() && current.getMapView().getId() == mapView.getId()) {
+            return;
+        }
+
+        ItemStack mapItem = new ItemStack(Material.FILLED_MAP);
+        MapMeta mapMeta = (MapMeta) mapItem.getItemMeta();
+        mapMeta.setMapView(mapView);
+        mapItem.setItemMeta(mapMeta);
+        frame.setItem(mapItem);
+    }
+
+    /**
+     * Reads the cached tiles of the given billboards off-thread (once per distinct key)
+     * and attaches them on the main thread if their chunks are still loaded.
+     *
+     * @return a future completing with the number of billboards that were attached
+     */
+    private CompletableFuture<Integer> loadTiles(Collection<BillboardData> targets) {
+        List<BillboardData> pending = new ArrayList<>();
+        Set<String> keys = new HashSet<>();
+        for (BillboardData data : targets) {
+            if (data.tiles == null && data.tileKey != null && !data.loadingTiles) {
+                data.loadingTiles = true;
+                pending.add(data);
+                keys.add(data.tileKey);
+            }
+        }
+        if (pending.isEmpty()) {
+            return CompletableFuture.completedFuture(0);
+        }
+
+        CompletableFuture<Integer> attached = new CompletableFuture<>();
+        ImageExecutor.getInstance().submitInternal(() -> {
+            Map<String, TileSet> loaded = new HashMap<>();
+            for (String key : keys) {
+                TileSet tiles = TileCache.load(key);
+                if (tiles != null) {
+                    loaded.put(key, tiles);
+                }
+            }
+            return loaded;
+        }).whenComplete((loaded, error) -> Bukkit.getScheduler().runTask(MinhutBillboards.getInstance(), () -> {
+            if (error != null) {
+                for (BillboardData data : pending) {
+                    data.loadingTiles = false;
+                }
+                MinhutBillboards.getInstance().getLogger().warning("Failed to read " + keys.size()
+                        + " tile sets from the cache, retrying when their chunks load again: " + error.getMessage());
+                attached.complete(0);
+                return;
+            }
+
+            int count = 0;
+            for (BillboardData data : pending) {
+                data.loadingTiles = false;
+                TileSet tiles = loaded.get(data.tileKey);
+                if (tiles != null && data.tiles == null && billboards.containsValue(data) && isLoaded(data, null)) {
+                    attachTiles(data, tiles);
+                    count++;
+                }
+            }
+            if (loaded.size() < keys.size()) {
+                MinhutBillboards.getInstance().getLogger().warning((keys.size() - loaded.size())
+                        + " tile sets were deleted from the cache folder; update or respawn those billboards to"
+                        + " redraw them");
+            }
+            attached.complete(count);
+        }));
+        return attached;
+    }
+
+    private boolean isLoaded(BillboardData data, Long ignoredChunk) {
+        World world = Bukkit.getWorld(data.worldId);
+        if (world == null) {
+            return false;
+        }
+        for (long key : data.getChunkKeys()) {
+            if (ignoredChunk != null && key == ignoredChunk) {
+                continue;
+            }
+            if (world.isChunkLoaded((int) (key >> 32), (int) key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void indexChunks(String name, BillboardData data) {
+        Map<Long, Set<String>> worldIndex = chunkIndex.computeIfAbsent(data.worldId, id -> new HashMap<>());
+        for (long key : data.getChunkKeys()) {
+            worldIndex.computeIfAbsent(key, k -> new HashSet<>()).add(name);
+        }
+    }
+
+    private void unindexChunks(String name, BillboardData data) {
+        Map<Long, Set<String>> worldIndex = chunkIndex.get(data.worldId);
+        if (worldIndex == null) {
+            return;
+        }
+        for (long key : data.getChunkKeys()) {
+            Set<String> names = worldIndex.get(key);
+            if (names != null && names.remove(name) && names.isEmpty()) {
+                worldIndex.remove(key);
+            }
+        }
+    }
+
+    private List<BillboardData> getBillboardsInChunk(Chunk chunk) {
+        Map<Long, Set<String>> worldIndex = chunkIndex.get(chunk.getWorld().getUID());
+        if (worldIndex == null) {
+            return List.of();
+        }
+        Set<String> names = worldIndex.get(BillboardData.chunkKey(chunk.getX(), chunk.getZ()));
+        if (names == null) {
+            return List.of();
+        }
+        List<BillboardData> result = new ArrayList<>(names.size());
+        for (String name : names) {
+            BillboardData data = billboards.get(name);
+            if (data != null) {
+                result.add(data);
+            }
+        }
+        return result;
+    }
+
+    public void handleChunkLoad(Chunk chunk) {
+        List<BillboardData> inChunk = getBillboardsInChunk(chunk);
+        if (!inChunk.isEmpty()) {
+            loadTiles(inChunk);
+            setFeedsPaused(inChunk, false);
+        }
+    }
+
+    private void setFeedsPaused(Collection<BillboardData> targets, boolean paused) {
+        for (Map.Entry<String, LiveFeed> entry : feeds.entrySet()) {
+            if (targets.contains(billboards.get(entry.getKey()))) {
+                entry.getValue().setPaused(paused);
+            }
+        }
+    }
+
+    public void handleChunkUnload(Chunk chunk) {
+        long key = BillboardData.chunkKey(chunk.getX(), chunk.getZ());
+        for (BillboardData data : getBillboardsInChunk(chunk)) {
+            for (UUID frameId : data.getFrameIds()) {
+                frameHandles.remove(frameId);
+            }
+            if (!isLoaded(data, key)) {
+                releaseTiles(data);
+                setFeedsPaused(List.of(data), true);
+            }
+        }
+    }
+
+    /**
+     * Brings billboard frames that loaded after their map changed up to date.
+     */
+    public void handleEntitiesLoad(List<Entity> entities) {
+        for (Entity entity : entities) {
+            if (!(entity instanceof ItemFrame frame) || !frame.getScoreboardTags().contains(BILLBOARD_TAG)) {
+                continue;
+            }
+            BillboardData data = billboards.get(frameToBoard.get(frame.getUniqueId()));
+            if (data == null) {
+                continue;
+            }
+            frameHandles.put(frame.getUniqueId(), frame);
+            for (int i = 0; i < data.frameIds.length; i++) {
+                if (frame.getUniqueId().equals(data.frameIds[i])) {
+                    syncFrame(data, i);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs a wall job a slice per tick, keeping track of it until it is done so
+     * it can be settled on shutdown.
+     */
+    public WallJob startWallJob(WallJob job) {
+        wallJobs.add(job);
+        job.onDone(() -> wallJobs.remove(job));
+        job.start();
+        return job;
+    }
+
+    /**
+     * Unregisters a billboard right away and tears its wall down over the next
+     * ticks.
+     *
+     * @return the running teardown job, or {@code null} if there is no such billboard
+     */
+    public WallJob removeBillboard(String name) {
+        String lowerName = name.toLowerCase();
+        BillboardData data = billboards.get(lowerName);
+
+        if (data == null)
+            return null;
+
+        if (glowViewers.remove(lowerName) != null) {
+            setGlowState(lowerName, false);
+            flushGlowChanges();
+        }
+        billboards.remove(lowerName);
+        cancelImageJob(lowerName);
+        LiveFeed feed = feeds.remove(lowerName);
+        if (feed != null) {
+            feed.stop();
+        }
+        unindexChunks(lowerName, data);
+        animator.stop(data);
+        detachTiles(data);
+        setTileKey(data, null);
+        for (int mapId : data.mapIds) {
+            if (mapId >= 0) {
+                registry.release(mapId);
+            }
+        }
+
+        List<ItemFrame> frames = new ArrayList<>();
+        for (UUID frameId : data.getFrameIds()) {
             frameToBoard.remove(frameId);
-            Entity entity = Bukkit.getEntity(frameId);
-            if (entity != null) {
-                entity.remove();
+            pendingGlow.remove(frameId);
+            ItemFrame frame = getFrame(frameId);
+            if (frame != null) {
+                frames.add(frame);
             }
+            frameHandles.remove(frameId);
         }
 
-        for (Location loc : data.blockLocations) {
-            Block block = loc.getBlock();
-            block.setType(Material.AIR);
+        List<Block> blocks = new ArrayList<>();
+        World world = Bukkit.getWorld(data.worldId);
+        if (world != null) {
+            for (Location loc : data.getBlockLocations(world)) {
+                blocks.add(loc.getBlock());
+            }
         }
 
         playerLookingAt.values().removeIf(board -> board.equals(lowerName));
+        saveBillboards();
+        return startWallJob(WallJob.remove(frames, blocks));
     }
 
     public Set<String> getBillboardNames() {
@@ -188,27 +1042,275 @@ public class BillboardManager {
         return billboards.containsKey(name.toLowerCase());
     }
 
+    public Optional<BillboardInfo> getBillboardInfo(String name) {
+        String lowerName = name.toLowerCase();
+        BillboardData data = billboards.get(lowerName);
+        if (data == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new BillboardInfo(lowerName, data.worldId, data.originX, data.originY, data.originZ,
+                data.facing, data.width, data.height, data.feedSource));
+    }
+
+    /**
+     * Current counts for {@code /billboard stats}, in display order.
+     */
+    public Map<String, Long> getCounters() {
+        long frames = 0;
+        long tiles = 0;
+        long loaded = 0;
+        for (BillboardData data : billboards.values()) {
+            frames += data.getFrameIds().size();
+            tiles += data.mapIds.length;
+            if (data.renderers != null) {
+                loaded++;
+            }
+        }
+
+        Map<String, Long> counters = new LinkedHashMap<>();
+        counters.put("billboards", (long) billboards.size());
+        counters.put("billboards_loaded", loaded);
+        counters.put("billboards_animated", (long) animator.getPlayingCount());
+        counters.put("frames", frames);
+        counters.put("tiles", tiles);
+        counters.put("maps", (long) registry.getEntryCount());
+        counters.put("free_maps", (long) registry.getFreeMapIds().size());
+        counters.put("image_jobs", (long) ImageExecutor.getInstance().getPendingJobs());
+        counters.put("wall_jobs", (long) wallJobs.size());
+        counters.put("prewarm_pending", (long) prewarmer.getPendingCount());
+        long feedFrames = 0;
+        long feedDropped = 0;
+        for (LiveFeed feed : feeds.values()) {
+            feedFrames += feed.getFramesShown();
+            feedDropped += feed.getFramesDropped();
+        }
+        counters.put("feeds", (long) feeds.size());
+        counters.put("feed_frames_shown", feedFrames);
+        counters.put("feed_frames_dropped", feedDropped);
+        counters.put("map_budget_bytes_per_tick", (long) sendScheduler.getBytesPerTick());
+        counters.put("map_renders_sent", sendScheduler.getRendersSent());
+        counters.put("map_bytes_sent", sendScheduler.getBytesSent());
+        counters.put("map_renders_deferred", sendScheduler.getRendersDeferred());
+        counters.put("map_renders_waiting", (long) sendScheduler.getWaitingCount());
+        counters.put("arena_tiles", (long) registry.getArena().getUsedSlots());
+        counters.put("arena_bytes", registry.getArena().getReservedBytes());
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        long gcCount = 0;
+        long gcMillis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += Math.max(0, collector.getCollectionCount());
+            gcMillis += Math.max(0, collector.getCollectionTime());
+        }
+        counters.put("heap_used_bytes", heap.getUsed());
+        counters.put("gc_count", gcCount);
+        counters.put("gc_time_ms", gcMillis);
+        counters.put("tile_cache_bytes", TileCache.getSizeBytes());
+        counters.put("download_cache_bytes", SourceCache.getSizeBytes());
+        return counters;
+    }
+
+    /**
+     * Processes the configured presets into the tile cache in the background
+     * ({@code prewarm.enabled}), so their first spawn doesn't have to.
+     */
+    public void prewarmPresets() {
+        prewarmer.start();
+    }
+
+    /**
+     * Source, frame rate and frame counts of each running feed, by billboard name.
+     */
+    public Map<String, LiveFeed.Stats> getFeedStats() {
+        Map<String, LiveFeed.Stats> stats = new TreeMap<>();
+        for (Map.Entry<String, LiveFeed> entry : feeds.entrySet()) {
+            stats.put(entry.getKey(), entry.getValue().getStats());
+        }
+        return stats;
+    }
+
     public void shutdown() {
         if (glowTask != null) {
             glowTask.cancel();
         }
+        for (LiveFeed feed : feeds.values()) {
+            feed.stop();
+        }
+        feeds.clear();
+
+        // Tasks can't be scheduled any more: finish teardowns and roll back unfinished walls now.
+        for (WallJob job : new ArrayList<>(wallJobs)) {
+            if (job.getKind() == WallJob.Kind.REMOVE) {
+                job.finishNow();
+            } else {
+                WallJob rollback = job.cancel();
+                if (rollback != null) {
+                    rollback.finishNow();
+                }
+            }
+        }
 
-        for (String billboard : billboards.keySet()) {
+        for (String billboard : glowViewers.keySet()) {
             setGlowState(billboard, false);
         }
+        flushGlowChanges();
 
+        writeSnapshot(false);
+        prewarmer.shutdown();
+        for (CompletableFuture<TileSet> job : imageJobs.values()) {
+            job.cancel(false);
+        }
+        imageJobs.clear();
+        animator.shutdown();
+        registry.clear();
+        registry.getArena().close();
+        sendScheduler.clear();
+        for (BillboardData data : billboards.values()) {
+            TileCache.unpin(data.tileKey);
+        }
         billboards.clear();
+        chunkIndex.clear();
         frameToBoard.clear();
+        frameHandles.clear();
+        glowViewers.clear();
         playerLookingAt.clear();
     }
 
     public void reload() {
+        ImageExecutor.getInstance().reload();
+        sendScheduler.reload();
+        // Feeds read their settings when they start.
+        for (Map.Entry<String, LiveFeed> entry : new ArrayList<>(feeds.entrySet())) {
+            entry.getValue().stop();
+            runFeed(entry.getKey(), billboards.get(entry.getKey()));
+        }
         setupGlowTeam();
+        for (String billboard : glowViewers.keySet()) {
+            setGlowState(billboard, true);
+        }
+        flushGlowChanges();
         startGlowTask();
+        prewarmer.start();
+    }
+
+    private File getStorageFile() {
+        return new File(MinhutBillboards.getInstance().getDataFolder(), "billboards.dat");
     }
 
-    private static class BillboardData {
-        final List<UUID> frameIds = new ArrayList<>();
-        final List<Location> blockLocations = new ArrayList<>();
+    /**
+     * Saves the registry on the next tick, once however many changes were made before it.
+     */
+    private void saveBillboards() {
+        if (saveTask == null) {
+            saveTask = Bukkit.getScheduler().runTask(MinhutBillboards.getInstance(), () -> writeSnapshot(true));
+        }
+    }
+
+    /**
+     * Snapshots the registry on the main thread and writes it out, off-thread unless
+     * shutting down. A write that finds a newer snapshot already on disk is dropped.
+     */
+    private void writeSnapshot(boolean async) {
+        if (saveTask != null) {
+            saveTask.cancel();
+            saveTask = null;
+        }
+
+        long version = ++saveVersion;
+        byte[] snapshot = BillboardStorage.encode(billboards, registry.getFreeMapIds());
+        File file = getStorageFile();
+        Runnable write = () -> {
+            synchronized (saveLock) {
+                if (version <= savedVersion) {
+                    return;
+                }
+                try {
+                    BillboardStorage.write(file, snapshot);
+                    savedVersion = version;
+                } catch (IOException e) {
+                    MinhutBillboards.getInstance().getLogger().severe("Failed to save billboards: " + e.getMessage());
+                }
+            }
+        };
+
+        if (async) {
+            ImageExecutor.getInstance().submitInternal(() -> {
+                write.run();
+                return null;
+            }).exceptionally(error -> {
+                if (error instanceof RejectedExecutionException) {
+                    saveBillboards();
+                }
+                return null;
+            });
+        } else {
+            write.run();
+        }
+    }
+
+    /**
+     * Re-registers billboards from the last snapshot and reattaches renderers from the
+     * tile cache for those in loaded chunks, without running the image pipeline again.
+     * The rest are attached as their chunks load.
+     */
+    private void restoreBillboards() {
+        long start = System.nanoTime();
+
+        BillboardStorage.Snapshot snapshot;
+        try {
+            snapshot = BillboardStorage.load(getStorageFile());
+        } catch (IOException e) {
+            // Keep the unreadable file out of the way of the next save, which would replace it.
+            File file = getStorageFile();
+            File corrupt = new File(file.getParentFile(), file.getName() + ".corrupt");
+            corrupt.delete();
+            file.renameTo(corrupt);
+            MinhutBillboards.getInstance().getLogger().severe("Failed to load billboards: " + e.getMessage()
+                    + "; the snapshot was moved to " + corrupt.getName());
+            return;
+        }
+        Map<String, BillboardData> saved = snapshot.billboards();
+        if (saved.isEmpty()) {
+            return;
+        }
+
+        int frames = 0;
+        for (Map.Entry<String, BillboardData> entry : saved.entrySet()) {
+            BillboardData data = entry.getValue();
+            billboards.put(entry.getKey(), data);
+            indexChunks(entry.getKey(), data);
+            TileCache.pin(data.tileKey);
+            for (UUID frameId : data.getFrameIds()) {
+                frameToBoard.put(frameId, entry.getKey());
+                frames++;
+            }
+            for (int i = 0; i < data.mapIds.length; i++) {
+                if (data.mapIds[i] >= 0) {
+                    registry.restore(data.mapIds[i], data.tileHashes[i]);
+                }
+            }
+        }
+        registry.restoreFreeMapIds(snapshot.freeMapIds());
+        for (Map.Entry<String, BillboardData> entry : saved.entrySet()) {
+            if (entry.getValue().feedSource != null) {
+                runFeed(entry.getKey(), entry.getValue());
+            }
+        }
+
+        long registeredMs = (System.nanoTime() - start) / 1_000_000;
+        MinhutBillboards.getInstance().getLogger().info("Restored " + saved.size() + " billboards (" + frames
+                + " frames, " + registry.getEntryCount() + " maps) in " + registeredMs + "ms");
+
+        List<BillboardData> loaded = new ArrayList<>();
+        for (BillboardData data : saved.values()) {
+            if (isLoaded(data, null)) {
+                loaded.add(data);
+            }
+        }
+
+        loadTiles(loaded).thenAccept(attached -> {
+            long totalMs = (System.nanoTime() - start) / 1_000_000;
+            MinhutBillboards.getInstance().getLogger().info("Reattached tiles for " + attached + "/"
+                    + billboards.size() + " billboards in loaded chunks in " + totalMs + "ms");
+        });
     }
 }
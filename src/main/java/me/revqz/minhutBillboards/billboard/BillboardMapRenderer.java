@@ -1,38 +1,179 @@
 package me.revqz.minhutBillboards.billboard;
 
+import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.bukkit.map.MapCanvas;
 import org.bukkit.map.MapRenderer;
 import org.bukkit.map.MapView;
+import org.bukkit.util.Vector;
 import org.jetbrains.annotations.NotNull;
 
-import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
 
+/**
+ * Draws a pre-quantized tile held in a {@link TileArena} slot, so the tile itself
+ * lives off-heap. Only the region changed since the last render is written, so
+ * animation frames and partial updates cost as much as the pixels they touch.
+ * <p>
+ * Without a send budget the renderer is not contextual: the map has one canvas,
+ * drawn once per change, and the server sends each player the changed rectangle.
+ * With a {@link MapSendScheduler} budget it is contextual, because putting off a
+ * render for one player only works if each player has their own canvas. Bukkit then
+ * keeps a canvas and a render buffer per player for every map they have seen, about
+ * 32 KiB per player per map, and this renderer a dirty region per player. A render
+ * that doesn't fit the player's budget waits for the map's next update.
+ */
 public class BillboardMapRenderer extends MapRenderer {
 
-    private final BufferedImage tileImage;
-    private boolean rendered = false;
+    private static final int SIZE = ImageLoader.MAP_SIZE;
+    /** Stands in for the player when rendering without one, e.g. in benchmarks. */
+    private static final UUID NO_PLAYER = new UUID(0, 0);
 
-    public BillboardMapRenderer(BufferedImage tileImage) {
-        super(false);
-        this.tileImage = tileImage;
+    private final MapSendScheduler scheduler;
+    private final TileArena arena;
+    private final int slot;
+
+    /** View of this renderer's arena slot; {@code null} once released. */
+    private ByteBuffer tile;
+
+    /**
+     * Per canvas: {@code {minX, minY, maxX, maxY}} still to draw, {@code maxX < 0} when
+     * clean. Keyed by player when contextual, else only {@link #NO_PLAYER}.
+     */
+    private final Map<UUID, int[]> viewers = new HashMap<>();
+
+    private UUID anchorWorld;
+    private double anchorX;
+    private double anchorY;
+    private double anchorZ;
+
+    /**
+     * @param tile 128x128 map palette indices, row-major, already quantized; copied
+     *             into a slot of {@code arena}
+     */
+    BillboardMapRenderer(TileArena arena, byte[] tile, MapSendScheduler scheduler) {
+        super(scheduler != null && scheduler.getBytesPerTick() > 0);
+        this.arena = arena;
+        this.slot = arena.allocate(tile);
+        this.tile = arena.view(slot);
+        this.scheduler = isContextual() ? scheduler : null;
     }
 
     @Override
+    @SuppressWarnings("deprecation")
     public void render(@NotNull MapView map, @NotNull MapCanvas canvas, @NotNull Player player) {
-        if (rendered) {
+        UUID viewer = player != null && isContextual() ? player.getUniqueId() : NO_PLAYER;
+        // A canvas drawn for the first time is blank.
+        int[] dirty = viewers.computeIfAbsent(viewer, id -> new int[] { 0, 0, SIZE - 1, SIZE - 1 });
+        if (dirty[2] < 0 || tile == null) {
             return;
         }
-        if (tileImage != null) {
-            try {
-                canvas.drawImage(0, 0, tileImage);
-                rendered = true;
-            } catch (Exception e) {
+
+        int bytes = (dirty[2] - dirty[0] + 1) * (dirty[3] - dirty[1] + 1);
+        if (scheduler != null && player != null && !scheduler.tryAcquire(viewer, this, bytes, score(player))) {
+            return;
+        }
+
+        for (int y = dirty[1]; y <= dirty[3]; y++) {
+            int row = y * SIZE;
+            for (int x = dirty[0]; x <= dirty[2]; x++) {
+                canvas.setPixel(x, y, tile.get(row + x));
             }
         }
+        dirty[2] = -1;
+    }
+
+    /**
+     * Where one of the frames showing this map hangs, used to rank it against the
+     * player's view. Shared maps keep the position of the last billboard attached.
+     */
+    void setAnchor(UUID world, double x, double y, double z) {
+        this.anchorWorld = world;
+        this.anchorX = x;
+        this.anchorY = y;
+        this.anchorZ = z;
+    }
+
+    /**
+     * Cosine between the player's view and the direction to the frame, slightly
+     * favouring closer frames; -2 if the frame is in another world.
+     */
+    private double score(Player player) {
+        Location eye = player.getEyeLocation();
+        if (anchorWorld == null || !anchorWorld.equals(eye.getWorld().getUID())) {
+            return -2;
+        }
+        double dx = anchorX - eye.getX();
+        double dy = anchorY - eye.getY();
+        double dz = anchorZ - eye.getZ();
+        double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        if (distance < 1e-6) {
+            return 1;
+        }
+        Vector direction = eye.getDirection();
+        return (dx * direction.getX() + dy * direction.getY() + dz * direction.getZ()) / distance
+                - distance / 1024;
+    }
+
+    /**
+     * Forgets what a player was shown, for when they leave and their canvas goes with them.
+     */
+    void forget(UUID playerId) {
+        viewers.remove(playerId);
+    }
+
+    /**
+     * Applies a changed region (e.g. the next animation frame) and marks it for redraw.
+     */
+    public void applyDelta(TileAnimation.TileDelta delta) {
+        if (tile == null) {
+            return;
+        }
+        delta.applyTo(tile);
+        markDirty(delta.x(), delta.y(), delta.x() + delta.width() - 1, delta.y() + delta.height() - 1);
+    }
+
+    /**
+     * Replaces the whole tile and redraws it.
+     */
+    public void setTile(byte[] tile) {
+        if (this.tile == null) {
+            return;
+        }
+        this.tile.put(0, tile);
+        invalidate();
+    }
+
+    /**
+     * Returns the arena slot once the renderer has been taken off its map.
+     */
+    void release() {
+        if (tile != null) {
+            tile = null;
+            arena.free(slot);
+        }
     }
 
     public void invalidate() {
-        rendered = false;
+        markDirty(0, 0, SIZE - 1, SIZE - 1);
+    }
+
+    private void markDirty(int minX, int minY, int maxX, int maxY) {
+        for (int[] dirty : viewers.values()) {
+            if (dirty[2] < 0) {
+                dirty[0] = minX;
+                dirty[1] = minY;
+                dirty[2] = maxX;
+                dirty[3] = maxY;
+                continue;
+            }
+            dirty[0] = Math.min(dirty[0], minX);
+            dirty[1] = Math.min(dirty[1], minY);
+            dirty[2] = Math.max(dirty[2], maxX);
+            dirty[3] = Math.max(dirty[3], maxY);
+        }
     }
 }
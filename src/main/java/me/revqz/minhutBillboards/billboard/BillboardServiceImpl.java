@@ -0,0 +1,208 @@
+package me.revqz.minhutBillboards.billboard;
+
+import me.revqz.minhutBillboards.MinhutBillboards;
+import me.revqz.minhutBillboards.api.BillboardImage;
+import me.revqz.minhutBillboards.api.BillboardInfo;
+import me.revqz.minhutBillboards.api.BillboardService;
+import me.revqz.minhutBillboards.api.BillboardSpec;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.BlockFace;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * {@link BillboardService} on top of the {@link BillboardManager}. Calls from other
+ * threads hop to the main thread first, where the manager's state lives.
+ */
+public class BillboardServiceImpl implements BillboardService {
+
+    /** Billboards whose walls are still being built, so their names stay taken. */
+    private final Set<String> building = new HashSet<>();
+
+    @Override
+    public CompletableFuture<Void> create(BillboardSpec spec) {
+        return createAll(List.of(spec));
+    }
+
+    @Override
+    public CompletableFuture<Void> createAll(Collection<BillboardSpec> specs) {
+        List<BillboardSpec> copy = List.copyOf(specs);
+        return onMainThread(() -> {
+            Set<String> names = new HashSet<>();
+            for (BillboardSpec spec : copy) {
+                String name = spec.name().toLowerCase();
+                if (!names.add(name) || building.contains(name)
+                        || BillboardManager.getInstance().billboardExists(name)) {
+                    throw new IllegalArgumentException("A billboard named " + spec.name() + " already exists");
+                }
+            }
+            building.addAll(names);
+
+            List<CompletableFuture<Void>> walls = new ArrayList<>();
+            for (BillboardSpec spec : copy) {
+                walls.add(build(spec));
+            }
+            return CompletableFuture.allOf(walls.toArray(new CompletableFuture[0]))
+                    .thenCompose(built -> showImages(copy));
+        });
+    }
+
+    private CompletableFuture<Void> build(BillboardSpec spec) {
+        String name = spec.name().toLowerCase();
+        World world = spec.origin().getWorld();
+        Location origin = spec.origin().getBlock().getLocation();
+        BlockFace widthDirection = WallJob.getWidthDirection(spec.facing());
+
+        CompletableFuture<Void> built = new CompletableFuture<>();
+        WallJob job = WallJob.spawn(world, origin, spec.facing(), widthDirection, spec.width(), spec.height(),
+                spec.material());
+        job.listener(new WallJob.Listener() {
+            @Override
+            public void onFinish() {
+                building.remove(name);
+                BillboardManager.getInstance().registerBillboard(name, world, origin, spec.facing(),
+                        widthDirection, spec.width(), spec.height(), job.getFrames());
+                built.complete(null);
+            }
+
+            @Override
+            public void onCancel() {
+                building.remove(name);
+                built.completeExceptionally(new CancellationException("Billboard " + name + " was rolled back"));
+            }
+        });
+        BillboardManager.getInstance().startWallJob(job);
+        return built;
+    }
+
+    private CompletableFuture<Void> showImages(List<BillboardSpec> specs) {
+        Map<String, BillboardImage> images = new LinkedHashMap<>();
+        for (BillboardSpec spec : specs) {
+            if (spec.image() != null) {
+                images.put(spec.name().toLowerCase(), spec.image());
+            }
+        }
+        if (images.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return BillboardManager.getInstance().updateBillboards(images).thenCompose(results -> {
+            List<String> failed = new ArrayList<>();
+            for (String name : images.keySet()) {
+                Integer changed = results.get(name);
+                if (changed != null && changed < 0) {
+                    failed.add(name);
+                }
+            }
+            if (!failed.isEmpty()) {
+                return CompletableFuture.failedFuture(
+                        new IllegalStateException("Failed to load the image of " + String.join(", ", failed)));
+            }
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Integer> update(String name, BillboardImage image) {
+        return onMainThread(() -> {
+            String lowerName = requireBillboard(name);
+            // A source goes the way of /billboard update, which can join a preset warm-up.
+            CompletableFuture<Integer> changed = image.getSource() != null
+                    ? BillboardManager.getInstance().updateBillboard(lowerName, image.getSource())
+                    : BillboardManager.getInstance().updateBillboards(Map.of(lowerName, image))
+                            .thenApply(results -> results.get(lowerName));
+            return changed.thenCompose(count -> {
+                if (count == null) {
+                    return CompletableFuture.failedFuture(
+                            new CancellationException("Billboard " + lowerName + " was updated again"));
+                }
+                if (count < 0) {
+                    return CompletableFuture.failedFuture(
+                            new IllegalStateException("Failed to load " + image.describe()));
+                }
+                return CompletableFuture.completedFuture(count);
+            });
+        });
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Integer>> updateAll(Map<String, BillboardImage> images) {
+        Map<String, BillboardImage> copy = new LinkedHashMap<>(images);
+        return onMainThread(() -> BillboardManager.getInstance().updateBillboards(copy));
+    }
+
+    @Override
+    public CompletableFuture<Void> remove(String name) {
+        return onMainThread(() -> {
+            WallJob job = BillboardManager.getInstance().removeBillboard(requireBillboard(name));
+            CompletableFuture<Void> removed = new CompletableFuture<>();
+            job.listener(new WallJob.Listener() {
+                @Override
+                public void onFinish() {
+                    removed.complete(null);
+                }
+            });
+            // Without a tick budget the wall comes down before the listener is set.
+            if (job.isDone()) {
+                removed.complete(null);
+            }
+            return removed;
+        });
+    }
+
+    @Override
+    public Set<String> getBillboardNames() {
+        return BillboardManager.getInstance().getBillboardNames();
+    }
+
+    @Override
+    public Optional<BillboardInfo> getBillboard(String name) {
+        return BillboardManager.getInstance().getBillboardInfo(name);
+    }
+
+    private static String requireBillboard(String name) {
+        if (!BillboardManager.getInstance().billboardExists(name)) {
+            throw new IllegalArgumentException("No billboard named " + name);
+        }
+        return name.toLowerCase();
+    }
+
+    /**
+     * Runs {@code action} on the main thread, now if this is it, turning anything it
+     * throws into a failed future.
+     */
+    private static <T> CompletableFuture<T> onMainThread(Supplier<CompletableFuture<T>> action) {
+        if (Bukkit.isPrimaryThread()) {
+            return call(action);
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Bukkit.getScheduler().runTask(MinhutBillboards.getInstance(), () -> call(action).whenComplete((value, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        }));
+        return result;
+    }
+
+    private static <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> action) {
+        try {
+            return action.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package me.revqz.minhutBillboards.billboard;
+
+import org.bukkit.block.BlockFace;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compact binary snapshot of the billboard registry ({@code billboards.dat}),
+ * together with the {@link TileRegistry} map ids that are free for reuse.
+ */
+class BillboardStorage {
+
+    private static final int MAGIC = 0x4D424244; // "MBBD"
+    private static final int FORMAT_VERSION = 1;
+
+    record Snapshot(Map<String, BillboardData> billboards, List<Integer> freeMapIds) {
+    }
+
+    /**
+     * Serializes the registry in memory, so it can be written out off the main thread.
+     */
+    static byte[] encode(Map<String, BillboardData> billboards, Collection<Integer> freeMapIds) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(billboards.size());
+
+            for (Map.Entry<String, BillboardData> entry : billboards.entrySet()) {
+                BillboardData data = entry.getValue();
+                out.writeUTF(entry.getKey());
+                writeUuid(out, data.worldId);
+                out.writeInt(data.originX);
+                out.writeInt(data.originY);
+                out.writeInt(data.originZ);
+                out.writeUTF(data.facing.name());
+                out.writeUTF(data.widthDirection.name());
+                out.writeShort(data.width);
+                out.writeShort(data.height);
+                out.writeUTF(data.tileKey != null ? data.tileKey : "");
+                out.writeUTF(data.feedSource != null ? data.feedSource : "");
+
+                for (int i = 0; i < data.frameIds.length; i++) {
+                    out.writeBoolean(data.frameIds[i] != null);
+                    if (data.frameIds[i] != null) {
+                        writeUuid(out, data.frameIds[i]);
+                    }
+                    out.writeInt(data.mapIds[i]);
+                    out.writeLong(data.tileHashes[i]);
+                }
+            }
+
+            out.writeInt(freeMapIds.size());
+            for (int mapId : freeMapIds) {
+                out.writeInt(mapId);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Replaces the snapshot file with an {@link #encode encoded} snapshot in one move.
+     */
+    static void write(File file, byte[] snapshot) throws IOException {
+        File folder = file.getParentFile();
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+
+        File temp = new File(folder, file.getName() + ".tmp");
+        Files.write(temp.toPath(), snapshot);
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static Snapshot load(File file) throws IOException {
+        Map<String, BillboardData> billboards = new LinkedHashMap<>();
+        List<Integer> freeMapIds = new ArrayList<>();
+        if (!file.isFile()) {
+            return new Snapshot(billboards, freeMapIds);
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a billboard snapshot");
+            }
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported billboard snapshot version " + version);
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                UUID worldId = readUuid(in);
+                int originX = in.readInt();
+                int originY = in.readInt();
+                int originZ = in.readInt();
+                BlockFace facing = readFace(in);
+                BlockFace widthDirection = readFace(in);
+                int width = in.readUnsignedShort();
+                int height = in.readUnsignedShort();
+
+                BillboardData data = new BillboardData(worldId, originX, originY, originZ, facing, widthDirection,
+                        width, height);
+                String tileKey = in.readUTF();
+                data.tileKey = tileKey.isEmpty() ? null : tileKey;
+                String feedSource = in.readUTF();
+                data.feedSource = feedSource.isEmpty() ? null : feedSource;
+
+                for (int t = 0; t < data.frameIds.length; t++) {
+                    if (in.readBoolean()) {
+                        data.frameIds[t] = readUuid(in);
+                    }
+                    data.mapIds[t] = in.readInt();
+                    data.tileHashes[t] = in.readLong();
+                }
+
+                billboards.put(name, data);
+            }
+
+            int free = in.readInt();
+            for (int f = 0; f < free; f++) {
+                freeMapIds.add(in.readInt());
+            }
+        }
+        return new Snapshot(billboards, freeMapIds);
+    }
+
+    /**
+     * Reads a face saved by name; walls only ever face, and extend along, the four
+     * horizontal directions.
+     */
+    private static BlockFace readFace(DataInputStream in) throws IOException {
+        String name = in.readUTF();
+        BlockFace face;
+        try {
+            face = BlockFace.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown block face " + name);
+        }
+        if (face.getModY() != 0 || Math.abs(face.getModX()) + Math.abs(face.getModZ()) != 1) {
+            throw new IOException("Not a horizontal block face: " + name);
+        }
+        return face;
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+}
@@ -4,121 +4,432 @@ import org.bukkit.map.MapPalette;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 public class ColorDithering {
 
-    private static final Color[] MAP_COLORS = extractMapColors();
+    /**
+     * Distance used to pick the palette colour for a pixel. Error diffusion always
+     * happens in sRGB; only the choice of nearest colour changes.
+     */
+    public enum ColorMatching {
+        /** Luma-weighted RGB distance, the original metric; muddy on skin tones and gradients. */
+        RGB,
+        /** CIE76 ΔE in CIELAB. */
+        CIELAB,
+        /** Euclidean distance in OKLab, which keeps hue steadier than CIELAB in blues and purples. */
+        OKLAB;
+
+        /**
+         * Parses a {@code color_matching} value, or returns {@code null} if it names no metric.
+         */
+        public static ColorMatching parse(String name) {
+            return switch (name.toLowerCase()) {
+                case "rgb" -> RGB;
+                case "cielab", "lab" -> CIELAB;
+                case "oklab" -> OKLAB;
+                default -> null;
+            };
+        }
+
+        /**
+         * Like {@link #parse(String)}, with unknown names mapped to {@link #RGB}, the default.
+         */
+        public static ColorMatching fromName(String name) {
+            ColorMatching matching = parse(name);
+            return matching != null ? matching : RGB;
+        }
+    }
+
+    private static final int LUT_BITS = 6;
+    private static final int LUT_SHIFT = 8 - LUT_BITS;
+    private static final int LUT_SIZE = 1 << LUT_BITS;
+
+    static final double LUMA_R = 0.30;
+    static final double LUMA_G = 0.59;
+    static final double LUMA_B = 0.11;
+    private static final double WEIGHT_R = LUMA_R * LUMA_R;
+    private static final double WEIGHT_G = LUMA_G * LUMA_G;
+    private static final double WEIGHT_B = LUMA_B * LUMA_B;
+
+    /** Bump whenever a change to the ditherers alters their output. */
+    private static final int ALGORITHM_VERSION = 1;
+
+    /** Unique map colours packed as {@code (paletteIndex << 24) | rgb}. */
+    private static final int[] PALETTE = extractMapColors();
+    /** Lookup table per {@link ColorMatching}, built the first time it is used. */
+    private static final byte[][] LOOKUP_TABLES = new byte[ColorMatching.values().length][];
+
+    /**
+     * Identifies the palette, colour matching and dithering code that produced a tile,
+     * so cached tiles are discarded after a palette change or an algorithm update.
+     */
+    public static String getPaletteVersion(ColorMatching matching) {
+        return ALGORITHM_VERSION + "-" + LUT_BITS + "-" + matching.name().toLowerCase() + "-"
+                + Integer.toHexString(java.util.Arrays.hashCode(PALETTE));
+    }
 
     @SuppressWarnings("deprecation")
-    private static Color[] extractMapColors() {
-        java.util.Set<Color> uniqueColors = new java.util.LinkedHashSet<>();
+    private static int[] extractMapColors() {
+        java.util.Map<Integer, Integer> uniqueColors = new java.util.LinkedHashMap<>();
 
         for (int i = 4; i < 256; i++) {
             try {
                 Color c = MapPalette.getColor((byte) i);
                 if (c.getAlpha() > 0) {
-                    uniqueColors.add(c);
+                    uniqueColors.putIfAbsent(c.getRGB() & 0xFFFFFF, i);
                 }
             } catch (Exception e) {
             }
         }
 
-        return uniqueColors.toArray(new Color[0]);
+        int[] palette = new int[uniqueColors.size()];
+        int n = 0;
+        for (java.util.Map.Entry<Integer, Integer> entry : uniqueColors.entrySet()) {
+            palette[n++] = (entry.getValue() << 24) | entry.getKey();
+        }
+        return palette;
+    }
+
+    static byte[] getLookupTable(ColorMatching matching) {
+        synchronized (LOOKUP_TABLES) {
+            byte[] lut = LOOKUP_TABLES[matching.ordinal()];
+            if (lut == null) {
+                lut = buildLookupTable(new PaletteIndex(PALETTE, matching));
+                LOOKUP_TABLES[matching.ordinal()] = lut;
+            }
+            return lut;
+        }
+    }
+
+    /**
+     * Builds a quantized RGB cube (6 bits per channel) holding the palette
+     * position closest to the centre of each cell, so lookups are O(1) per pixel
+     * whatever the metric costs. Cells are answered by the palette's k-d tree.
+     */
+    private static byte[] buildLookupTable(PaletteIndex index) {
+        byte[] lut = new byte[LUT_SIZE * LUT_SIZE * LUT_SIZE];
+        double half = ((1 << LUT_SHIFT) - 1) / 2.0;
+
+        for (int qr = 0; qr < LUT_SIZE; qr++) {
+            double r = (qr << LUT_SHIFT) + half;
+            for (int qg = 0; qg < LUT_SIZE; qg++) {
+                double g = (qg << LUT_SHIFT) + half;
+                for (int qb = 0; qb < LUT_SIZE; qb++) {
+                    double b = (qb << LUT_SHIFT) + half;
+                    lut[(qr << (2 * LUT_BITS)) | (qg << LUT_BITS) | qb] = (byte) index.nearest(r, g, b);
+                }
+            }
+        }
+
+        return lut;
     }
 
-    public static BufferedImage applyFloydSteinbergDithering(BufferedImage original) {
+    private static int closestPaletteEntry(double r, double g, double b) {
+        int closest = 0;
+        double minDistance = Double.MAX_VALUE;
+
+        for (int i = 0; i < PALETTE.length; i++) {
+            double distance = weightedDistance(r, g, b, PALETTE[i]);
+            if (distance < minDistance) {
+                minDistance = distance;
+                closest = i;
+            }
+        }
+
+        return closest;
+    }
+
+    private static double weightedDistance(double r, double g, double b, int rgb) {
+        double dr = r - ((rgb >> 16) & 0xFF);
+        double dg = g - ((rgb >> 8) & 0xFF);
+        double db = b - (rgb & 0xFF);
+        return dr * dr * WEIGHT_R + dg * dg * WEIGHT_G + db * db * WEIGHT_B;
+    }
+
+    /**
+     * Dithers the image into map palette indices, row-major ({@code y * width + x}).
+     * Pixels are streamed a row at a time and error is carried in two rows of
+     * fixed-point (1/16) integers, so working memory is O(width).
+     */
+    public static byte[] applyFloydSteinbergDithering(BufferedImage original) {
+        return applyFloydSteinbergDithering(original, ColorMatching.RGB);
+    }
+
+    public static byte[] applyFloydSteinbergDithering(BufferedImage original, ColorMatching matching) {
+        byte[] lut = getLookupTable(matching);
         int width = original.getWidth();
         int height = original.getHeight();
 
-        float[][] red = new float[width][height];
-        float[][] green = new float[width][height];
-        float[][] blue = new float[width][height];
+        PixelRows rows = new PixelRows(original);
+        int[] pixels = new int[width];
+        int[] current = new int[errorRowLength(width)];
+        int[] next = new int[errorRowLength(width)];
+        byte[] result = new byte[width * height];
 
         for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int rgb = original.getRGB(x, y);
-                red[x][y] = (rgb >> 16) & 0xFF;
-                green[x][y] = (rgb >> 8) & 0xFF;
-                blue[x][y] = rgb & 0xFF;
+            rows.read(y, pixels);
+            diffuseSpan(lut, pixels, current, next, y + 1 < height, result, y * width, 0, width);
+
+            int[] swap = current;
+            current = next;
+            next = swap;
+            java.util.Arrays.fill(next, 0);
+        }
+
+        return result;
+    }
+
+    /**
+     * Floyd-Steinberg dithering spread over up to {@code threads} workers on the
+     * {@link ComputePool}. Workers take rows in order and each row trails the one
+     * above it by two pixels (a wavefront), so no two workers ever touch the same
+     * error cell at once. Error is integer fixed-point, so the output is identical to
+     * {@link #applyFloydSteinbergDithering(BufferedImage, ColorMatching)}.
+     */
+    public static byte[] applyFloydSteinbergDithering(BufferedImage original, int threads) {
+        return applyFloydSteinbergDithering(original, threads, ColorMatching.RGB);
+    }
+
+    public static byte[] applyFloydSteinbergDithering(BufferedImage original, int threads, ColorMatching matching) {
+        int height = original.getHeight();
+        if (threads <= 1 || height < threads * 2) {
+            return applyFloydSteinbergDithering(original, matching);
+        }
+
+        WavefrontDiffusion diffusion = new WavefrontDiffusion(original, threads, getLookupTable(matching));
+        ComputePool.run(threads, diffusion::run);
+        return diffusion.result;
+    }
+
+    /**
+     * Error rows hold interleaved RGB with one cell of padding on each side, so
+     * pixel {@code x} lives at {@code 3 * (x + 1)}.
+     */
+    private static int errorRowLength(int width) {
+        return 3 * (width + 2);
+    }
+
+    /**
+     * Quantizes pixels {@code [from, to)} of one row, pushing error right into
+     * {@code current} and down into {@code next}. Error is stored in sixteenths.
+     */
+    private static void diffuseSpan(byte[] lut, int[] pixels, int[] current, int[] next, boolean hasNext,
+            byte[] result, int offset, int from, int to) {
+        int width = pixels.length;
+
+        for (int x = from; x < to; x++) {
+            int rgb = pixels[x];
+            int e = 3 * (x + 1);
+
+            int oldR = clamp(((rgb >> 16) & 0xFF) + ((current[e] + 8) >> 4));
+            int oldG = clamp(((rgb >> 8) & 0xFF) + ((current[e + 1] + 8) >> 4));
+            int oldB = clamp((rgb & 0xFF) + ((current[e + 2] + 8) >> 4));
+
+            int closest = PALETTE[lookup(lut, oldR, oldG, oldB)];
+            result[offset + x] = (byte) (closest >>> 24);
+
+            int errR = oldR - ((closest >> 16) & 0xFF);
+            int errG = oldG - ((closest >> 8) & 0xFF);
+            int errB = oldB - (closest & 0xFF);
+
+            if (x + 1 < width) {
+                current[e + 3] += errR * 7;
+                current[e + 4] += errG * 7;
+                current[e + 5] += errB * 7;
+            }
+            if (hasNext) {
+                next[e - 3] += errR * 3;
+                next[e - 2] += errG * 3;
+                next[e - 1] += errB * 3;
+                next[e] += errR * 5;
+                next[e + 1] += errG * 5;
+                next[e + 2] += errB * 5;
+                next[e + 3] += errR;
+                next[e + 4] += errG;
+                next[e + 5] += errB;
             }
         }
+    }
 
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int oldR = clamp((int) red[x][y]);
-                int oldG = clamp((int) green[x][y]);
-                int oldB = clamp((int) blue[x][y]);
-
-                Color closest = findClosestColor(oldR, oldG, oldB);
-                int newR = closest.getRed();
-                int newG = closest.getGreen();
-                int newB = closest.getBlue();
-
-                float errR = oldR - newR;
-                float errG = oldG - newG;
-                float errB = oldB - newB;
-
-                if (x + 1 < width) {
-                    red[x + 1][y] += errR * 7f / 16f;
-                    green[x + 1][y] += errG * 7f / 16f;
-                    blue[x + 1][y] += errB * 7f / 16f;
-                }
-                if (x - 1 >= 0 && y + 1 < height) {
-                    red[x - 1][y + 1] += errR * 3f / 16f;
-                    green[x - 1][y + 1] += errG * 3f / 16f;
-                    blue[x - 1][y + 1] += errB * 3f / 16f;
+    private static final class WavefrontDiffusion {
+
+        private static final int SPAN = 32;
+
+        private final PixelRows rows;
+        private final byte[] lut;
+        private final int width;
+        private final int height;
+        private final int[][] errorRing;
+        private final byte[] result;
+        private final AtomicInteger nextRow = new AtomicInteger();
+        private final AtomicIntegerArray progress;
+        private final AtomicBoolean failed = new AtomicBoolean();
+
+        WavefrontDiffusion(BufferedImage original, int threads, byte[] lut) {
+            this.rows = new PixelRows(original);
+            this.lut = lut;
+            this.width = original.getWidth();
+            this.height = original.getHeight();
+            // Rows finish in order, so the rows in flight are at most `threads`
+            // consecutive ones, each also writing the row below: threads + 2
+            // buffers are never reused early.
+            this.errorRing = new int[threads + 2][errorRowLength(width)];
+            this.result = new byte[width * height];
+            this.progress = new AtomicIntegerArray(height);
+        }
+
+        /**
+         * Dithers rows until none are left. Rows are claimed in order, so the row a
+         * worker waits on is always held by a worker that is already running.
+         */
+        void run() {
+            int[] pixels = new int[width];
+            try {
+                int y;
+                while ((y = nextRow.getAndIncrement()) < height) {
+                    int[] current = errorRing[y % errorRing.length];
+                    int[] next = errorRing[(y + 1) % errorRing.length];
+                    java.util.Arrays.fill(next, 0);
+                    rows.read(y, pixels);
+
+                    for (int from = 0; from < width; from += SPAN) {
+                        int to = Math.min(from + SPAN, width);
+                        if (y > 0) {
+                            // The row above must have diffused into to + 1 before we add to it.
+                            awaitProgress(y - 1, to + 2);
+                        }
+                        diffuseSpan(lut, pixels, current, next, y + 1 < height, result, y * width, from, to);
+                        progress.set(y, to);
+                    }
                 }
-                if (y + 1 < height) {
-                    red[x][y + 1] += errR * 5f / 16f;
-                    green[x][y + 1] += errG * 5f / 16f;
-                    blue[x][y + 1] += errB * 5f / 16f;
+            } catch (RuntimeException | Error e) {
+                failed.set(true);
+                throw e;
+            }
+        }
+
+        private void awaitProgress(int row, int pixels) {
+            int needed = Math.min(pixels, width);
+            int spins = 0;
+            while (progress.get(row) < needed) {
+                if (failed.get()) {
+                    throw new IllegalStateException("Parallel dithering aborted");
                 }
-                if (x + 1 < width && y + 1 < height) {
-                    red[x + 1][y + 1] += errR * 1f / 16f;
-                    green[x + 1][y + 1] += errG * 1f / 16f;
-                    blue[x + 1][y + 1] += errB * 1f / 16f;
+                if (++spins < 256) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
                 }
+            }
+        }
+    }
 
-                red[x][y] = newR;
-                green[x][y] = newG;
-                blue[x][y] = newB;
+    /**
+     * Row reader that copies straight out of an int-packed raster's backing array
+     * and only falls back to {@link BufferedImage#getRGB} for other layouts.
+     * Returned pixels are always ARGB.
+     */
+    static final class PixelRows {
+
+        private final BufferedImage image;
+        private final int[] data;
+        private final int origin;
+        private final int stride;
+        private final boolean opaque;
+
+        PixelRows(BufferedImage image) {
+            this.image = image;
+            int type = image.getType();
+            WritableRaster raster = image.getRaster();
+            if ((type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_RGB)
+                    && raster.getSampleModel() instanceof SinglePixelPackedSampleModel model
+                    && raster.getDataBuffer() instanceof DataBufferInt buffer) {
+                this.data = buffer.getData();
+                this.stride = model.getScanlineStride();
+                this.origin = buffer.getOffset() - raster.getSampleModelTranslateY() * stride
+                        - raster.getSampleModelTranslateX();
+                this.opaque = type == BufferedImage.TYPE_INT_RGB;
+            } else {
+                this.data = null;
+                this.stride = 0;
+                this.origin = 0;
+                this.opaque = false;
             }
         }
 
-        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int r = clamp((int) red[x][y]);
-                int g = clamp((int) green[x][y]);
-                int b = clamp((int) blue[x][y]);
-                result.setRGB(x, y, (r << 16) | (g << 8) | b);
+        void read(int y, int[] row) {
+            int width = row.length;
+            if (data == null) {
+                image.getRGB(0, y, width, 1, row, 0, width);
+                return;
+            }
+            System.arraycopy(data, origin + y * stride, row, 0, width);
+            if (opaque) {
+                for (int x = 0; x < width; x++) {
+                    row[x] |= 0xFF000000;
+                }
             }
         }
+    }
 
-        return result;
+    private static int lookup(byte[] lut, int r, int g, int b) {
+        return lut[((r >> LUT_SHIFT) << (2 * LUT_BITS)) | ((g >> LUT_SHIFT) << LUT_BITS) | (b >> LUT_SHIFT)] & 0xFF;
     }
 
-    private static Color findClosestColor(int r, int g, int b) {
-        Color closest = MAP_COLORS[0];
-        double minDistance = Double.MAX_VALUE;
+    /**
+     * Returns the RGB value of the palette colour chosen for the given colour.
+     */
+    static int findClosestColor(int r, int g, int b) {
+        return PALETTE[lookup(getLookupTable(ColorMatching.RGB), r, g, b)] & 0xFFFFFF;
+    }
 
-        for (Color mapColor : MAP_COLORS) {
-            double dr = (r - mapColor.getRed()) * 0.30;
-            double dg = (g - mapColor.getGreen()) * 0.59;
-            double db = (b - mapColor.getBlue()) * 0.11;
+    /**
+     * Returns the map palette index chosen for the given colour.
+     */
+    static byte findClosestIndex(byte[] lut, int r, int g, int b) {
+        return (byte) (PALETTE[lookup(lut, r, g, b)] >>> 24);
+    }
 
-            double distance = dr * dr + dg * dg + db * db;
+    /**
+     * Reference linear scan over the whole palette, kept to verify the lookup table.
+     */
+    static int findClosestColorExact(int r, int g, int b) {
+        return PALETTE[closestPaletteEntry(r, g, b)] & 0xFFFFFF;
+    }
 
-            if (distance < minDistance) {
-                minDistance = distance;
-                closest = mapColor;
-            }
-        }
+    /**
+     * Weighted RGB distance (not squared) between a colour and a palette colour.
+     */
+    static double colorDistance(int r, int g, int b, int rgb) {
+        return Math.sqrt(weightedDistance(r, g, b, rgb));
+    }
 
-        return closest;
+    /**
+     * Upper bound on how much further the lookup table's choice can be from a
+     * colour than the exact nearest palette entry, in {@link #colorDistance} units.
+     * Any colour is at most half a cell diagonal from the cell centre the table was
+     * built for, and the triangle inequality doubles that.
+     */
+    static double lookupTolerance() {
+        double half = ((1 << LUT_SHIFT) - 1) / 2.0;
+        return 2 * half * Math.sqrt(WEIGHT_R + WEIGHT_G + WEIGHT_B);
     }
 
-    public static BufferedImage applyOrderedDithering(BufferedImage original) {
+    /**
+     * Ordered (Bayer 4x4) dithering into map palette indices, row-major.
+     */
+    public static byte[] applyOrderedDithering(BufferedImage original) {
+        return applyOrderedDithering(original, ColorMatching.RGB);
+    }
+
+    public static byte[] applyOrderedDithering(BufferedImage original, ColorMatching matching) {
+        byte[] lut = getLookupTable(matching);
         int width = original.getWidth();
         int height = original.getHeight();
 
@@ -129,11 +440,14 @@ public class ColorDithering {
                 { 15, 7, 13, 5 }
         };
 
-        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        PixelRows rows = new PixelRows(original);
+        int[] pixels = new int[width];
+        byte[] result = new byte[width * height];
 
         for (int y = 0; y < height; y++) {
+            rows.read(y, pixels);
             for (int x = 0; x < width; x++) {
-                int rgb = original.getRGB(x, y);
+                int rgb = pixels[x];
                 int r = (rgb >> 16) & 0xFF;
                 int g = (rgb >> 8) & 0xFF;
                 int b = rgb & 0xFF;
@@ -144,8 +458,38 @@ public class ColorDithering {
                 g = clamp(g + threshold / 4);
                 b = clamp(b + threshold / 4);
 
-                Color closest = findClosestColor(r, g, b);
-                result.setRGB(x, y, closest.getRGB());
+                result[y * width + x] = findClosestIndex(lut, r, g, b);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Plain nearest-colour quantization without dithering. Mostly transparent
+     * pixels map to the transparent palette index, as {@code MapCanvas.drawImage} did.
+     */
+    public static byte[] quantize(BufferedImage original) {
+        return quantize(original, ColorMatching.RGB);
+    }
+
+    public static byte[] quantize(BufferedImage original, ColorMatching matching) {
+        byte[] lut = getLookupTable(matching);
+        int width = original.getWidth();
+        int height = original.getHeight();
+        PixelRows rows = new PixelRows(original);
+        int[] pixels = new int[width];
+        byte[] result = new byte[width * height];
+
+        for (int y = 0; y < height; y++) {
+            rows.read(y, pixels);
+            for (int x = 0; x < width; x++) {
+                int argb = pixels[x];
+                if ((argb >>> 24) < 128) {
+                    continue;
+                }
+                result[y * width + x] = findClosestIndex(lut, (argb >> 16) & 0xFF, (argb >> 8) & 0xFF,
+                        argb & 0xFF);
             }
         }
 
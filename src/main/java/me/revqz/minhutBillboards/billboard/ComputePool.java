@@ -0,0 +1,146 @@
+package me.revqz.minhutBillboards.billboard;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * The one fork/join pool, sized to the cores, that dithering and resizing spread
+ * their work over. Every image job shares it, so parallel stages running at once
+ * never add up to more threads than the machine has.
+ */
+public class ComputePool {
+
+    private static ForkJoinPool pool;
+
+    private static synchronized ForkJoinPool get() {
+        if (pool == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), forkJoinPool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                thread.setName("MinhutBillboards-Compute-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, null, false);
+        }
+        return pool;
+    }
+
+    /**
+     * Runs {@code worker} on the calling thread and on up to {@code workers - 1} pool
+     * threads at once. Each copy must claim work until none is left, since copies that
+     * find the pool busy never start; the call returns once every started copy has.
+     */
+    static void run(int workers, Runnable worker) {
+        ForkJoinPool pool = get();
+        int helpers = Math.min(workers, pool.getParallelism() + 1) - 1;
+        if (helpers <= 0) {
+            worker.run();
+            return;
+        }
+
+        Helpers state = new Helpers();
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[helpers];
+        for (int i = 0; i < helpers; i++) {
+            tasks[i] = pool.submit(() -> {
+                if (state.enter()) {
+                    try {
+                        worker.run();
+                    } catch (RuntimeException | Error e) {
+                        state.fail(e);
+                    } finally {
+                        state.exit();
+                    }
+                }
+            });
+        }
+
+        try {
+            worker.run();
+        } catch (RuntimeException | Error e) {
+            state.fail(e);
+        } finally {
+            for (ForkJoinTask<?> task : tasks) {
+                task.cancel(false);
+            }
+            state.close();
+        }
+        state.rethrow();
+    }
+
+    /**
+     * Calls {@code body} for every index in {@code [0, count)}, on up to {@code workers}
+     * threads. Indices are handed out in order.
+     */
+    static void forEach(int workers, int count, IntConsumer body) {
+        AtomicInteger next = new AtomicInteger();
+        run(Math.min(workers, count), () -> {
+            int index;
+            while ((index = next.getAndIncrement()) < count) {
+                body.accept(index);
+            }
+        });
+    }
+
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+            pool = null;
+        }
+    }
+
+    /**
+     * Tracks the helper copies that got a thread, so the caller can wait for them.
+     */
+    private static final class Helpers {
+        private int active;
+        private boolean closed;
+        private Throwable failure;
+
+        synchronized boolean enter() {
+            if (closed) {
+                return false;
+            }
+            active++;
+            return true;
+        }
+
+        synchronized void exit() {
+            if (--active == 0) {
+                notifyAll();
+            }
+        }
+
+        synchronized void fail(Throwable error) {
+            if (failure == null) {
+                failure = error;
+            }
+        }
+
+        synchronized void close() {
+            closed = true;
+            boolean interrupted = false;
+            while (active > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        synchronized void rethrow() {
+            if (failure instanceof RuntimeException e) {
+                throw e;
+            }
+            if (failure instanceof Error e) {
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package me.revqz.minhutBillboards.billboard;
+
+import me.revqz.minhutBillboards.MinhutBillboards;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Plugin-owned pool for image loading and processing, so bursts of spawns don't
+ * compete with other plugins on the common pool. Image jobs are bounded by
+ * {@code processing.queue_size} and rejected beyond it; cancelling a job's future
+ * removes it from the queue, or stops it at its next {@link #checkCancelled()}. A job
+ * holds its place in the bound until it has left the executor, not merely until its
+ * future is cancelled.
+ */
+public class ImageExecutor {
+
+    private static ImageExecutor instance;
+
+    private static final ThreadLocal<CompletableFuture<?>> CURRENT_JOB = new ThreadLocal<>();
+    /** Internal jobs that may be waiting or running at once. */
+    private static final int MAX_INTERNAL_JOBS = 64;
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicInteger pendingJobs = new AtomicInteger();
+    private final AtomicInteger internalJobs = new AtomicInteger();
+    private volatile int maxPendingJobs;
+
+    private ImageExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "MinhutBillboards-Image-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        reload();
+    }
+
+    public static ImageExecutor getInstance() {
+        if (instance == null) {
+            instance = new ImageExecutor();
+        }
+        return instance;
+    }
+
+    /**
+     * Applies {@code processing.threads} (0 = half the cores) and {@code processing.queue_size}.
+     */
+    public void reload() {
+        int threads = MinhutBillboards.getInstance().getConfig().getInt("processing.threads", 0);
+        if (threads <= 0) {
+            threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        }
+        int queueSize = Math.max(0, MinhutBillboards.getInstance().getConfig().getInt("processing.queue_size", 16));
+
+        if (threads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(threads);
+            executor.setCorePoolSize(threads);
+        } else {
+            executor.setCorePoolSize(threads);
+            executor.setMaximumPoolSize(threads);
+        }
+        maxPendingJobs = threads + queueSize;
+    }
+
+    /**
+     * Runs an image job, or fails the returned future with a
+     * {@link RejectedExecutionException} when the queue is full.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> job) {
+        if (pendingJobs.incrementAndGet() > maxPendingJobs) {
+            pendingJobs.decrementAndGet();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Image queue is full ("
+                    + (maxPendingJobs - executor.getMaximumPoolSize()) + " jobs waiting)"));
+        }
+        return run(job, pendingJobs);
+    }
+
+    /**
+     * Runs short internal work, such as reading cached tiles back, that must not be
+     * turned away by a queue full of image jobs. It has a bound of its own and fails
+     * with a {@link RejectedExecutionException} beyond it.
+     */
+    <T> CompletableFuture<T> submitInternal(Supplier<T> job) {
+        if (internalJobs.incrementAndGet() > MAX_INTERNAL_JOBS) {
+            internalJobs.decrementAndGet();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Too many internal jobs ("
+                    + MAX_INTERNAL_JOBS + ")"));
+        }
+        return run(job, internalJobs);
+    }
+
+    /**
+     * Runs a job that holds a place in {@code slots}, given back once the job has run or
+     * was taken off the queue unrun.
+     */
+    private <T> CompletableFuture<T> run(Supplier<T> job, AtomicInteger slots) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable task = () -> {
+            try {
+                if (result.isDone()) {
+                    return;
+                }
+                CURRENT_JOB.set(result);
+                try {
+                    result.complete(job.get());
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                } finally {
+                    CURRENT_JOB.remove();
+                }
+            } finally {
+                slots.decrementAndGet();
+            }
+        };
+        result.whenComplete((value, error) -> {
+            // Only a job still in the queue can be removed; a running one frees its
+            // place when it stops at its next checkCancelled().
+            if (result.isCancelled() && executor.remove(task)) {
+                slots.decrementAndGet();
+            }
+        });
+
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            slots.decrementAndGet();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * Throws a {@link CancellationException} if the job running on this thread was
+     * cancelled. Long jobs call this between stages.
+     */
+    public static void checkCancelled() {
+        CompletableFuture<?> job = CURRENT_JOB.get();
+        if (job != null && job.isCancelled()) {
+            throw new CancellationException();
+        }
+    }
+
+    public int getPendingJobs() {
+        return pendingJobs.get();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        instance = null;
+    }
+}
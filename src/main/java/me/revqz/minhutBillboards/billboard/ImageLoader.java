@@ -3,71 +3,215 @@ package me.revqz.minhutBillboards.billboard;
 import me.revqz.minhutBillboards.MinhutBillboards;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.net.URL;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Iterator;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class ImageLoader {
 
-    private static final int MAP_SIZE = 128;
+    public static final int MAP_SIZE = 128;
+    public static final int TILE_BYTES = MAP_SIZE * MAP_SIZE;
 
-    public static CompletableFuture<BufferedImage> loadImageFromUrl(String imageUrl) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                URL url = new java.net.URI(imageUrl).toURL();
-                BufferedImage image = ImageIO.read(url);
-                if (image == null) {
-                    MinhutBillboards.getInstance().getLogger().warning("Failed to load image from URL: " + imageUrl);
-                    return null;
-                }
-                return image;
-            } catch (Exception e) {
-                MinhutBillboards.getInstance().getLogger().severe("Error loading image from URL: " + e.getMessage());
-                e.printStackTrace();
+    /** Bumped whenever decoding or resizing changes the pixels produced from the same source. */
+    static final int PIPELINE_VERSION = 2;
+
+    /** Last unknown {@code effects.color_matching} warned about, so it is reported once. */
+    private static volatile String warnedColorMatching;
+
+    /** Largest encoded source accepted, from {@code limits.max_source_mb}. */
+    public static long getMaxSourceBytes() {
+        return MinhutBillboards.getInstance().getConfig().getLong("limits.max_source_mb", 32) * 1024 * 1024;
+    }
+
+    /** Largest source resolution accepted, from {@code limits.max_source_megapixels}. */
+    public static long getMaxSourcePixels() {
+        return MinhutBillboards.getInstance().getConfig().getLong("limits.max_source_megapixels", 50) * 1_000_000;
+    }
+
+    /** Most frames an animation may have, from {@code limits.max_frames}. */
+    public static int getMaxFrames() {
+        return Math.max(1, MinhutBillboards.getInstance().getConfig().getInt("limits.max_frames", 500));
+    }
+
+    public static CompletableFuture<byte[]> loadSourceFromUrl(String imageUrl) {
+        return ImageExecutor.getInstance().submit(() -> readSourceFromUrl(imageUrl));
+    }
+
+    public static CompletableFuture<byte[]> loadSourceFromFile(String filename) {
+        return ImageExecutor.getInstance().submit(() -> readSourceFromFile(filename));
+    }
+
+    private static byte[] readSourceFromUrl(String imageUrl) {
+        try {
+            return SourceCache.fetch(imageUrl);
+        } catch (CancellationException e) {
+            throw e;
+        } catch (Exception e) {
+            MinhutBillboards.getInstance().getLogger().severe("Error loading image from URL: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static byte[] readSourceFromFile(String filename) {
+        try {
+            File imagesFolder = new File(MinhutBillboards.getInstance().getDataFolder(), "images");
+            if (!imagesFolder.exists()) {
+                imagesFolder.mkdirs();
+                MinhutBillboards.getInstance().getLogger()
+                        .info("Created images folder at: " + imagesFolder.getAbsolutePath());
+            }
+
+            File imageFile = resolveImageFile(filename);
+            if (imageFile == null) {
+                MinhutBillboards.getInstance().getLogger()
+                        .warning("Image path is outside the images folder: " + filename);
                 return null;
             }
-        });
+            if (!imageFile.exists()) {
+                MinhutBillboards.getInstance().getLogger()
+                        .warning("Image file not found: " + imageFile.getAbsolutePath());
+                return null;
+            }
+            if (imageFile.length() > getMaxSourceBytes()) {
+                MinhutBillboards.getInstance().getLogger().warning("Image is larger than "
+                        + (getMaxSourceBytes() / 1024 / 1024) + " MB: " + imageFile.getName());
+                return null;
+            }
+
+            return Files.readAllBytes(imageFile.toPath());
+        } catch (Exception e) {
+            MinhutBillboards.getInstance().getLogger().severe("Error loading image from file: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
     }
 
-    public static CompletableFuture<BufferedImage> loadImageFromFile(String filename) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                File imagesFolder = new File(MinhutBillboards.getInstance().getDataFolder(), "images");
-                if (!imagesFolder.exists()) {
-                    imagesFolder.mkdirs();
-                    MinhutBillboards.getInstance().getLogger()
-                            .info("Created images folder at: " + imagesFolder.getAbsolutePath());
-                }
+    /**
+     * Resolves a file source against the {@code images} folder. Returns {@code null} if
+     * it leads anywhere else, through {@code ..}, an absolute path or a symbolic link,
+     * so sources from commands, config and the API can only read images.
+     */
+    static File resolveImageFile(String source) {
+        File folder = new File(MinhutBillboards.getInstance().getDataFolder(), "images");
+        try {
+            Path root = folder.getCanonicalFile().toPath();
+            Path file = new File(folder, source).getCanonicalFile().toPath();
+            return file.startsWith(root) && !file.equals(root) ? file.toFile() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
 
-                File imageFile = new File(imagesFolder, filename);
-                if (!imageFile.exists()) {
-                    MinhutBillboards.getInstance().getLogger()
-                            .warning("Image file not found: " + imageFile.getAbsolutePath());
+    /**
+     * Reads the raw, still encoded bytes of an image file or URL.
+     */
+    public static CompletableFuture<byte[]> loadSource(String source) {
+        return ImageExecutor.getInstance().submit(() -> readSource(source));
+    }
+
+    private static byte[] readSource(String source) {
+        if (source.startsWith("http://") || source.startsWith("https://")) {
+            return readSourceFromUrl(source);
+        } else {
+            return readSourceFromFile(source);
+        }
+    }
+
+    public static BufferedImage decodeImage(byte[] data, String source) {
+        return decodeImage(data, source, 0, 0);
+    }
+
+    /**
+     * Decodes an image, reading its header first to reject sources above the pixel
+     * limit. When a target size in pixels is given, rows and columns are skipped at
+     * decode time so that no more than about twice the target resolution is ever
+     * held in memory.
+     */
+    public static BufferedImage decodeImage(byte[] data, String source, int targetWidth, int targetHeight) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                MinhutBillboards.getInstance().getLogger().warning("Failed to read image: " + source);
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > getMaxSourcePixels()) {
+                    MinhutBillboards.getInstance().getLogger().warning("Image is too large (" + width + "x" + height
+                            + ", limit " + (getMaxSourcePixels() / 1_000_000) + " megapixels): " + source);
                     return null;
                 }
 
-                BufferedImage image = ImageIO.read(imageFile);
-                if (image == null) {
-                    MinhutBillboards.getInstance().getLogger().warning("Failed to read image file: " + filename);
-                    return null;
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (targetWidth > 0 && targetHeight > 0) {
+                    int stepX = Math.max(1, width / (targetWidth * 2));
+                    int stepY = Math.max(1, height / (targetHeight * 2));
+                    if (stepX > 1 || stepY > 1) {
+                        param.setSourceSubsampling(stepX, stepY, 0, 0);
+                    }
                 }
-                return image;
-            } catch (Exception e) {
-                MinhutBillboards.getInstance().getLogger().severe("Error loading image from file: " + e.getMessage());
-                e.printStackTrace();
-                return null;
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
             }
-        });
+        } catch (Exception e) {
+            MinhutBillboards.getInstance().getLogger().severe("Error decoding image: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
     }
 
     public static CompletableFuture<BufferedImage> loadImage(String source) {
-        if (source.startsWith("http://") || source.startsWith("https://")) {
-            return loadImageFromUrl(source);
-        } else {
-            return loadImageFromFile(source);
-        }
+        return loadSource(source).thenApply(data -> data == null ? null : decodeImage(data, source));
+    }
+
+    /**
+     * Returns the configured resize filter, with unknown values mapped to
+     * {@code lanczos} so they share cache entries with it.
+     */
+    public static String getResizeFilter() {
+        String filter = MinhutBillboards.getInstance().getConfig()
+                .getString("effects.resize_filter", "lanczos").toLowerCase();
+        return switch (filter) {
+            case "area", "bicubic" -> filter;
+            default -> "lanczos";
+        };
+    }
+
+    /**
+     * Scales an image to the wall's pixel size. {@code bicubic} is the single-pass
+     * Java2D scaler, which aliases on large downscales; the other filters go through
+     * {@link ImageResampler}.
+     */
+    public static BufferedImage resizeImage(BufferedImage image, int widthBlocks, int heightBlocks,
+            String resizeFilter, int threads) {
+        int targetWidth = widthBlocks * MAP_SIZE;
+        int targetHeight = heightBlocks * MAP_SIZE;
+
+        return switch (resizeFilter) {
+            case "area" -> ImageResampler.resize(image, targetWidth, targetHeight, ImageResampler.Filter.AREA,
+                    threads);
+            case "bicubic" -> resizeImage(image, widthBlocks, heightBlocks);
+            default -> ImageResampler.resize(image, targetWidth, targetHeight, ImageResampler.Filter.LANCZOS,
+                    threads);
+        };
     }
 
     public static BufferedImage resizeImage(BufferedImage image, int widthBlocks, int heightBlocks) {
@@ -89,52 +233,371 @@ public class ImageLoader {
         return resized;
     }
 
-    public static BufferedImage[][] splitIntoTiles(BufferedImage image, int widthBlocks, int heightBlocks) {
-        BufferedImage[][] tiles = new BufferedImage[widthBlocks][heightBlocks];
+    /**
+     * Splits row-major palette indices into 128x128 tiles indexed {@code [x][y]},
+     * with {@code y = 0} being the bottom row of the wall.
+     */
+    public static byte[][][] splitIntoTiles(byte[] pixels, int widthBlocks, int heightBlocks) {
+        byte[][][] tiles = new byte[widthBlocks][heightBlocks][];
+        int imageWidth = widthBlocks * MAP_SIZE;
 
         for (int x = 0; x < widthBlocks; x++) {
             for (int y = 0; y < heightBlocks; y++) {
                 int pixelX = x * MAP_SIZE;
                 int pixelY = (heightBlocks - 1 - y) * MAP_SIZE;
 
-                tiles[x][y] = image.getSubimage(pixelX, pixelY, MAP_SIZE, MAP_SIZE);
+                byte[] tile = new byte[TILE_BYTES];
+                for (int row = 0; row < MAP_SIZE; row++) {
+                    System.arraycopy(pixels, (pixelY + row) * imageWidth + pixelX, tile, row * MAP_SIZE, MAP_SIZE);
+                }
+                tiles[x][y] = tile;
             }
         }
 
         return tiles;
     }
 
-    public static CompletableFuture<BufferedImage[][]> loadAndProcessImage(String source, int widthBlocks,
-            int heightBlocks) {
-        return loadImage(source).thenApply(image -> {
-            if (image == null) {
-                return null;
+    /**
+     * Returns the configured dithering mode, with unknown values mapped to
+     * {@code floyd_steinberg} so they share cache entries with it.
+     */
+    public static String getDitheringMode() {
+        String mode = MinhutBillboards.getInstance().getConfig()
+                .getString("effects.dithering", "floyd_steinberg").toLowerCase();
+        return switch (mode) {
+            case "ordered", "none" -> mode;
+            default -> "floyd_steinberg";
+        };
+    }
+
+    /**
+     * Distance used to match pixels to map colours: {@code rgb} (default), {@code cielab} or
+     * {@code oklab}. Unknown values fall back to {@code rgb} with a warning.
+     */
+    public static String getColorMatching() {
+        String name = MinhutBillboards.getInstance().getConfig().getString("effects.color_matching", "rgb");
+        ColorDithering.ColorMatching matching = ColorDithering.ColorMatching.parse(name);
+        if (matching == null) {
+            if (!name.equals(warnedColorMatching)) {
+                warnedColorMatching = name;
+                MinhutBillboards.getInstance().getLogger().warning("Unknown effects.color_matching '" + name
+                        + "', using rgb (expected rgb, cielab or oklab)");
             }
+            matching = ColorDithering.ColorMatching.RGB;
+        }
+        return matching.name().toLowerCase();
+    }
 
-            BufferedImage resized = resizeImage(image, widthBlocks, heightBlocks);
+    /**
+     * Workers one image may use for resizing and Floyd-Steinberg dithering, from
+     * {@code effects.dithering_threads} (0 = one per core).
+     */
+    public static int getDitheringThreads() {
+        int threads = MinhutBillboards.getInstance().getConfig().getInt("effects.dithering_threads", 0);
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
 
-            String ditheringMode = MinhutBillboards.getInstance().getConfig()
-                    .getString("effects.dithering", "floyd_steinberg");
+    /**
+     * Resizes, dithers and splits a decoded image into palette-index tiles.
+     */
+    public static byte[][][] processImage(BufferedImage image, int widthBlocks, int heightBlocks,
+            String ditheringMode, String resizeFilter, String colorMatching) {
+        return processImage(image, widthBlocks, heightBlocks, ditheringMode, resizeFilter, colorMatching,
+                getDitheringThreads());
+    }
 
-            BufferedImage processed;
-            switch (ditheringMode.toLowerCase()) {
-                case "floyd_steinberg" -> {
-                    MinhutBillboards.getInstance().getLogger().info("Applying Floyd-Steinberg dithering...");
-                    processed = ColorDithering.applyFloydSteinbergDithering(resized);
-                }
-                case "ordered" -> {
-                    MinhutBillboards.getInstance().getLogger().info("Applying ordered dithering...");
-                    processed = ColorDithering.applyOrderedDithering(resized);
-                }
-                case "none" -> {
-                    processed = resized;
+    /**
+     * Like {@link #processImage(BufferedImage, int, int, String, String, String)}, using
+     * {@code threads} workers for resizing and dithering. The tiles don't depend on it.
+     */
+    public static byte[][][] processImage(BufferedImage image, int widthBlocks, int heightBlocks,
+            String ditheringMode, String resizeFilter, String colorMatching, int threads) {
+        long start = PipelineMetrics.start();
+        BufferedImage resized = resizeImage(image, widthBlocks, heightBlocks, resizeFilter, threads);
+        PipelineMetrics.record(PipelineMetrics.Stage.RESIZE, start);
+
+        start = PipelineMetrics.start();
+        ColorDithering.ColorMatching matching = ColorDithering.ColorMatching.fromName(colorMatching);
+        byte[] processed;
+        switch (ditheringMode) {
+            case "ordered" -> processed = ColorDithering.applyOrderedDithering(resized, matching);
+            case "none" -> processed = ColorDithering.quantize(resized, matching);
+            default -> processed = ColorDithering.applyFloydSteinbergDithering(resized, threads, matching);
+        }
+        PipelineMetrics.record(PipelineMetrics.Stage.DITHER, start);
+
+        start = PipelineMetrics.start();
+        byte[][][] tiles = splitIntoTiles(processed, widthBlocks, heightBlocks);
+        PipelineMetrics.record(PipelineMetrics.Stage.SPLIT, start);
+        return tiles;
+    }
+
+    /**
+     * Loads a source and turns it into tiles on the {@link ImageExecutor}, reusing the
+     * on-disk tile cache when the same bytes were already processed at this size and
+     * dithering mode. Animated GIFs and folders of numbered frames inside {@code images}
+     * produce an animated {@link TileSet}.
+     *
+     * @return a future completing with the tiles, or {@code null} if the image could
+     *         not be loaded; it fails with a {@link java.util.concurrent.RejectedExecutionException}
+     *         when the image queue is full, and may be cancelled to abandon the job
+     */
+    public static CompletableFuture<TileSet> loadAndProcessImage(String source, int widthBlocks,
+            int heightBlocks) {
+        return loadAndProcessImage(source, widthBlocks, heightBlocks, getDitheringThreads());
+    }
+
+    /**
+     * Like {@link #loadAndProcessImage(String, int, int)}, resizing and dithering with
+     * {@code threads} workers, e.g. to keep background work to a share of the cores.
+     */
+    public static CompletableFuture<TileSet> loadAndProcessImage(String source, int widthBlocks,
+            int heightBlocks, int threads) {
+        String ditheringMode = getDitheringMode();
+        String resizeFilter = getResizeFilter();
+        String colorMatching = getColorMatching();
+
+        File sequenceFolder = getSequenceFolder(source);
+        if (sequenceFolder != null) {
+            return ImageExecutor.getInstance().submit(() -> {
+                long start = PipelineMetrics.start();
+                TileSet tiles = loadSequence(sequenceFolder, widthBlocks, heightBlocks, ditheringMode,
+                        resizeFilter, colorMatching, threads);
+                PipelineMetrics.record(PipelineMetrics.Stage.PIPELINE, start);
+                return tiles;
+            });
+        }
+
+        return ImageExecutor.getInstance().submit(() -> {
+            long start = PipelineMetrics.start();
+            TileSet tiles = loadImage(source, widthBlocks, heightBlocks, ditheringMode, resizeFilter,
+                    colorMatching, threads);
+            PipelineMetrics.record(PipelineMetrics.Stage.PIPELINE, start);
+            return tiles;
+        });
+    }
+
+    private static TileSet loadImage(String source, int widthBlocks, int heightBlocks, String ditheringMode,
+            String resizeFilter, String colorMatching, int threads) {
+        long start = PipelineMetrics.start();
+        byte[] data = readSource(source);
+        if (data == null) {
+            return null;
+        }
+        PipelineMetrics.record(PipelineMetrics.Stage.LOAD, start);
+        ImageExecutor.checkCancelled();
+
+        return processSource(data, source, widthBlocks, heightBlocks, ditheringMode, resizeFilter, colorMatching,
+                threads);
+    }
+
+    /**
+     * Turns encoded image bytes into tiles on the calling thread, as for a file source:
+     * GIFs animate and the tile cache is keyed on the bytes. {@code label} names the
+     * image in log messages.
+     */
+    static TileSet processSource(byte[] data, String label, int widthBlocks, int heightBlocks,
+            String ditheringMode, String resizeFilter, String colorMatching, int threads) {
+        if (data.length > getMaxSourceBytes()) {
+            MinhutBillboards.getInstance().getLogger().warning("Image is larger than "
+                    + (getMaxSourceBytes() / 1024 / 1024) + " MB: " + label);
+            return null;
+        }
+
+        long start = PipelineMetrics.start();
+        String key = TileCache.key(data, widthBlocks, heightBlocks, ditheringMode, resizeFilter, colorMatching);
+        TileSet cached = TileCache.load(key);
+        PipelineMetrics.record(PipelineMetrics.Stage.CACHE_LOOKUP, start);
+        if (cached != null && cached.width() == widthBlocks && cached.height() == heightBlocks) {
+            return cached;
+        }
+
+        if (AnimationLoader.isGif(data)) {
+            try {
+                AnimationBuilder animation = new AnimationBuilder(widthBlocks, heightBlocks, ditheringMode,
+                        resizeFilter, colorMatching, threads);
+                if (AnimationLoader.readGifFrames(data, widthBlocks * MAP_SIZE * 2, heightBlocks * MAP_SIZE * 2,
+                        getMaxFrames(), animation)) {
+                    return animation.finish(key);
                 }
-                default -> {
-                    processed = ColorDithering.applyFloydSteinbergDithering(resized);
+            } catch (CancellationException e) {
+                throw e;
+            } catch (Exception e) {
+                MinhutBillboards.getInstance().getLogger().warning("Failed to read GIF frames, using the "
+                        + "first frame only: " + e.getMessage());
+            }
+        }
+
+        start = PipelineMetrics.start();
+        BufferedImage image = decodeImage(data, label, widthBlocks * MAP_SIZE, heightBlocks * MAP_SIZE);
+        if (image == null) {
+            return null;
+        }
+        PipelineMetrics.record(PipelineMetrics.Stage.DECODE, start);
+        ImageExecutor.checkCancelled();
+
+        return processTiles(key, image, widthBlocks, heightBlocks, ditheringMode, resizeFilter, colorMatching,
+                threads);
+    }
+
+    /**
+     * Turns an already decoded image into tiles on the calling thread, caching them
+     * under a hash of its pixels.
+     */
+    static TileSet processDecoded(BufferedImage image, int widthBlocks, int heightBlocks, String ditheringMode,
+            String resizeFilter, String colorMatching, int threads) {
+        long pixels = (long) image.getWidth() * image.getHeight();
+        if (pixels > getMaxSourcePixels()) {
+            MinhutBillboards.getInstance().getLogger().warning("Image is too large (" + image.getWidth() + "x"
+                    + image.getHeight() + ", limit " + (getMaxSourcePixels() / 1_000_000) + " megapixels)");
+            return null;
+        }
+
+        long start = PipelineMetrics.start();
+        String key = TileCache.key(image, widthBlocks, heightBlocks, ditheringMode, resizeFilter, colorMatching);
+        TileSet cached = TileCache.load(key);
+        PipelineMetrics.record(PipelineMetrics.Stage.CACHE_LOOKUP, start);
+        if (cached != null && cached.width() == widthBlocks && cached.height() == heightBlocks) {
+            return cached;
+        }
+        ImageExecutor.checkCancelled();
+
+        return processTiles(key, image, widthBlocks, heightBlocks, ditheringMode, resizeFilter, colorMatching,
+                threads);
+    }
+
+    private static TileSet processTiles(String key, BufferedImage image, int widthBlocks, int heightBlocks,
+            String ditheringMode, String resizeFilter, String colorMatching, int threads) {
+        MinhutBillboards.getInstance().getLogger().info("Applying " + ditheringMode + " dithering...");
+        TileSet tiles = new TileSet(key, widthBlocks, heightBlocks,
+                processImage(image, widthBlocks, heightBlocks, ditheringMode, resizeFilter, colorMatching,
+                        threads));
+        long start = PipelineMetrics.start();
+        TileCache.store(tiles);
+        PipelineMetrics.record(PipelineMetrics.Stage.CACHE_STORE, start);
+        return tiles;
+    }
+
+    /**
+     * Loads a source and turns it into tiles on the calling thread, like
+     * {@link #loadAndProcessImage(String, int, int)} does on the executor.
+     */
+    static TileSet loadTiles(String source, int widthBlocks, int heightBlocks, String ditheringMode,
+            String resizeFilter, String colorMatching, int threads) {
+        File sequenceFolder = getSequenceFolder(source);
+        if (sequenceFolder != null) {
+            return loadSequence(sequenceFolder, widthBlocks, heightBlocks, ditheringMode, resizeFilter,
+                    colorMatching, threads);
+        }
+        return loadImage(source, widthBlocks, heightBlocks, ditheringMode, resizeFilter, colorMatching, threads);
+    }
+
+    private static File getSequenceFolder(String source) {
+        if (source.startsWith("http://") || source.startsWith("https://")) {
+            return null;
+        }
+        File folder = resolveImageFile(source);
+        return folder != null && folder.isDirectory() ? folder : null;
+    }
+
+    private static TileSet loadSequence(File folder, int widthBlocks, int heightBlocks, String ditheringMode,
+            String resizeFilter, String colorMatching, int threads) {
+        try {
+            File[] files = AnimationLoader.listSequence(folder);
+            if (files.length == 0) {
+                MinhutBillboards.getInstance().getLogger().warning("No frames found in: " + folder.getName());
+                return null;
+            }
+            if (files.length > getMaxFrames()) {
+                MinhutBillboards.getInstance().getLogger().warning("Sequence has too many frames ("
+                        + files.length + ", limit " + getMaxFrames() + "): " + folder.getName());
+                return null;
+            }
+
+            int delayTicks = MinhutBillboards.getInstance().getConfig().getInt("effects.sequence_frame_delay", 2);
+
+            // Key on every frame's content plus the delay, which is not part of the files.
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (File file : files) {
+                if (file.length() > getMaxSourceBytes()) {
+                    MinhutBillboards.getInstance().getLogger().warning("Frame is larger than "
+                            + (getMaxSourceBytes() / 1024 / 1024) + " MB: " + file.getName());
+                    return null;
                 }
+                digest.update(Files.readAllBytes(file.toPath()));
             }
+            digest.update((byte) delayTicks);
+            String key = TileCache.key(digest.digest(), widthBlocks, heightBlocks, ditheringMode,
+                    resizeFilter, colorMatching);
 
-            return splitIntoTiles(processed, widthBlocks, heightBlocks);
-        });
+            TileSet cached = TileCache.load(key);
+            if (cached != null && cached.width() == widthBlocks && cached.height() == heightBlocks) {
+                return cached;
+            }
+
+            AnimationBuilder animation = new AnimationBuilder(widthBlocks, heightBlocks, ditheringMode,
+                    resizeFilter, colorMatching, threads);
+            AnimationLoader.readSequence(files, delayTicks, widthBlocks * MAP_SIZE, heightBlocks * MAP_SIZE,
+                    animation);
+            return animation.finish(key);
+        } catch (CancellationException e) {
+            throw e;
+        } catch (Exception e) {
+            MinhutBillboards.getInstance().getLogger().severe("Error loading frame sequence: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Quantizes animation frames through the normal pipeline as they are decoded and
+     * delta-encodes them, so each decoded frame can be dropped before the next one.
+     */
+    private static final class AnimationBuilder implements Consumer<AnimationLoader.Frame> {
+        private final int widthBlocks;
+        private final int heightBlocks;
+        private final String ditheringMode;
+        private final String resizeFilter;
+        private final String colorMatching;
+        private final int threads;
+        private final TileAnimation.Encoder encoder = new TileAnimation.Encoder();
+
+        AnimationBuilder(int widthBlocks, int heightBlocks, String ditheringMode, String resizeFilter,
+                String colorMatching, int threads) {
+            this.widthBlocks = widthBlocks;
+            this.heightBlocks = heightBlocks;
+            this.ditheringMode = ditheringMode;
+            this.resizeFilter = resizeFilter;
+            this.colorMatching = colorMatching;
+            this.threads = threads;
+        }
+
+        @Override
+        public void accept(AnimationLoader.Frame frame) {
+            ImageExecutor.checkCancelled();
+            if (encoder.getFrameCount() == 0) {
+                MinhutBillboards.getInstance().getLogger().info("Applying " + ditheringMode
+                        + " dithering to animation frames...");
+            }
+            encoder.add(processImage(frame.image(), widthBlocks, heightBlocks, ditheringMode, resizeFilter,
+                    colorMatching, threads), frame.delayTicks());
+        }
+
+        /**
+         * Stores the frames received so far as a first frame plus per-tile deltas.
+         *
+         * @return the tiles, or {@code null} if no frame was received
+         */
+        TileSet finish(String key) {
+            if (encoder.getFrameCount() == 0) {
+                return null;
+            }
+            TileAnimation animation = encoder.getFrameCount() > 1 ? encoder.finish() : null;
+            TileSet tiles = new TileSet(key, widthBlocks, heightBlocks, encoder.getFirstFrame(), animation);
+            long start = PipelineMetrics.start();
+            TileCache.store(tiles);
+            PipelineMetrics.record(PipelineMetrics.Stage.CACHE_STORE, start);
+            return tiles;
+        }
     }
 }
@@ -0,0 +1,300 @@
+package me.revqz.minhutBillboards.billboard;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.function.IntConsumer;
+
+/**
+ * Resizes images on packed ARGB int arrays. Large downscales are first halved with
+ * exact box averages until the image is within 2x of the target, then one separable
+ * pass of the chosen filter produces the final size. Filtering is done on
+ * premultiplied alpha with fixed-point weights, in row bands shared out over the
+ * {@link ComputePool}.
+ */
+public class ImageResampler {
+
+    public enum Filter {
+        /** Lanczos-3: sharpest, with slight ringing on hard edges. */
+        LANCZOS(3) {
+            @Override
+            double weight(double x, double pixel) {
+                x = Math.abs(x);
+                if (x < 1e-9) {
+                    return 1;
+                }
+                if (x >= 3) {
+                    return 0;
+                }
+                double px = Math.PI * x;
+                return 3 * Math.sin(px) * Math.sin(px / 3) / (px * px);
+            }
+        },
+        /** Area averaging: every output pixel is the mean of the source area it covers. */
+        AREA(1) {
+            @Override
+            double weight(double x, double pixel) {
+                double half = pixel / 2;
+                return Math.max(0, Math.min(x + half, 0.5) - Math.max(x - half, -0.5));
+            }
+        };
+
+        final double support;
+
+        Filter(double support) {
+            this.support = support;
+        }
+
+        /**
+         * Weight of a source pixel centred {@code x} output pixels away, where a
+         * source pixel is {@code pixel} output pixels wide.
+         */
+        abstract double weight(double x, double pixel);
+    }
+
+    private static final int WEIGHT_BITS = 14;
+    private static final int ROUND = 1 << (WEIGHT_BITS - 1);
+    private static final int BAND_ROWS = 32;
+
+    /**
+     * Resizes an image to {@code width x height}, returning a {@code TYPE_INT_ARGB} image.
+     */
+    public static BufferedImage resize(BufferedImage image, int width, int height, Filter filter, int threads) {
+        int sourceWidth = image.getWidth();
+        int sourceHeight = image.getHeight();
+        int[] pixels = new int[sourceWidth * sourceHeight];
+        ColorDithering.PixelRows rows = new ColorDithering.PixelRows(image);
+        int[] row = new int[sourceWidth];
+        for (int y = 0; y < sourceHeight; y++) {
+            rows.read(y, row);
+            System.arraycopy(row, 0, pixels, y * sourceWidth, sourceWidth);
+        }
+
+        int[] resized = resize(pixels, sourceWidth, sourceHeight, width, height, filter, threads);
+
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] target = ((DataBufferInt) result.getRaster().getDataBuffer()).getData();
+        System.arraycopy(resized, 0, target, 0, resized.length);
+        return result;
+    }
+
+    /**
+     * Resizes row-major, non-premultiplied ARGB pixels. The input array is left untouched.
+     */
+    public static int[] resize(int[] pixels, int sourceWidth, int sourceHeight, int width, int height,
+            Filter filter, int threads) {
+        int[] current = new int[pixels.length];
+        forEachBand(threads, sourceHeight, y -> premultiply(pixels, current, y * sourceWidth, sourceWidth));
+
+        int[] image = current;
+        int w = sourceWidth;
+        int h = sourceHeight;
+        while (w >= width * 2 || h >= height * 2) {
+            int halfW = w >= width * 2 ? w / 2 : w;
+            int halfH = h >= height * 2 ? h / 2 : h;
+            image = halve(threads, image, w, halfW, halfH);
+            w = halfW;
+            h = halfH;
+        }
+
+        if (w != width) {
+            image = resampleRows(threads, image, w, h, width, filter);
+            w = width;
+        }
+        if (h != height) {
+            image = resampleColumns(threads, image, w, h, height, filter);
+        }
+
+        int[] result = image;
+        forEachBand(threads, height, y -> unpremultiply(result, y * width, width));
+        return result;
+    }
+
+    /**
+     * 2x box average in each axis that is being halved; an odd last row or column is dropped.
+     */
+    private static int[] halve(int threads, int[] image, int width, int halfWidth, int halfHeight) {
+        int stepX = halfWidth < width ? 2 : 1;
+        int height = image.length / width;
+        int stepY = halfHeight < height ? 2 : 1;
+        int shift = (stepX == 2 ? 1 : 0) + (stepY == 2 ? 1 : 0);
+        int round = (1 << shift) >> 1;
+        int[] result = new int[halfWidth * halfHeight];
+
+        forEachBand(threads, halfHeight, y -> {
+            int top = y * stepY * width;
+            int bottom = top + (stepY - 1) * width;
+            int out = y * halfWidth;
+            for (int x = 0; x < halfWidth; x++) {
+                int sx = x * stepX;
+                int a = 0;
+                int r = 0;
+                int g = 0;
+                int b = 0;
+                for (int dy = top; dy <= bottom; dy += width) {
+                    for (int dx = 0; dx < stepX; dx++) {
+                        int p = image[dy + sx + dx];
+                        a += p >>> 24;
+                        r += (p >> 16) & 0xFF;
+                        g += (p >> 8) & 0xFF;
+                        b += p & 0xFF;
+                    }
+                }
+                result[out + x] = ((a + round) >> shift) << 24 | ((r + round) >> shift) << 16
+                        | ((g + round) >> shift) << 8 | ((b + round) >> shift);
+            }
+        });
+        return result;
+    }
+
+    private static int[] resampleRows(int threads, int[] image, int width, int height, int targetWidth,
+            Filter filter) {
+        Weights weights = new Weights(width, targetWidth, filter);
+        int[] result = new int[targetWidth * height];
+        forEachBand(threads, height, y -> {
+            int in = y * width;
+            int out = y * targetWidth;
+            for (int x = 0; x < targetWidth; x++) {
+                result[out + x] = weights.apply(image, in, 1, x);
+            }
+        });
+        return result;
+    }
+
+    private static int[] resampleColumns(int threads, int[] image, int width, int height, int targetHeight,
+            Filter filter) {
+        Weights weights = new Weights(height, targetHeight, filter);
+        int[] result = new int[width * targetHeight];
+        forEachBand(threads, targetHeight, y -> {
+            int out = y * width;
+            for (int x = 0; x < width; x++) {
+                result[out + x] = weights.apply(image, x, width, y);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Fixed-point filter taps for every output position along one axis.
+     */
+    private static final class Weights {
+
+        private final int[] first;
+        private final int[] count;
+        private final int[] taps;
+        private final int maxTaps;
+
+        Weights(int sourceSize, int targetSize, Filter filter) {
+            double scale = (double) sourceSize / targetSize;
+            double filterScale = Math.max(scale, 1);
+            double support = filter.support * filterScale;
+            maxTaps = (int) Math.ceil(support) * 2 + 1;
+
+            first = new int[targetSize];
+            count = new int[targetSize];
+            taps = new int[targetSize * maxTaps];
+            double[] values = new double[maxTaps];
+
+            for (int i = 0; i < targetSize; i++) {
+                double center = (i + 0.5) * scale;
+                int from = Math.max(0, (int) (center - support + 0.5));
+                int to = Math.min(sourceSize, (int) (center + support + 0.5));
+                to = Math.min(to, from + maxTaps);
+
+                double total = 0;
+                for (int j = from; j < to; j++) {
+                    values[j - from] = filter.weight((j - center + 0.5) / filterScale, 1 / filterScale);
+                    total += values[j - from];
+                }
+                if (total == 0) {
+                    from = Math.min(sourceSize - 1, (int) center);
+                    to = from + 1;
+                    values[0] = 1;
+                    total = 1;
+                }
+
+                first[i] = from;
+                count[i] = to - from;
+                for (int j = 0; j < to - from; j++) {
+                    taps[i * maxTaps + j] = (int) Math.round(values[j] / total * (1 << WEIGHT_BITS));
+                }
+            }
+        }
+
+        /**
+         * Filters output position {@code i} from the pixels at {@code base + k * stride}.
+         */
+        int apply(int[] image, int base, int stride, int i) {
+            int a = ROUND;
+            int r = ROUND;
+            int g = ROUND;
+            int b = ROUND;
+            int offset = i * maxTaps;
+            int index = base + first[i] * stride;
+            for (int k = 0; k < count[i]; k++, index += stride) {
+                int p = image[index];
+                int w = taps[offset + k];
+                a += (p >>> 24) * w;
+                r += ((p >> 16) & 0xFF) * w;
+                g += ((p >> 8) & 0xFF) * w;
+                b += (p & 0xFF) * w;
+            }
+            return clamp(a >> WEIGHT_BITS) << 24 | clamp(r >> WEIGHT_BITS) << 16 | clamp(g >> WEIGHT_BITS) << 8
+                    | clamp(b >> WEIGHT_BITS);
+        }
+    }
+
+    private static void premultiply(int[] source, int[] target, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            int p = source[i];
+            int a = p >>> 24;
+            if (a == 255) {
+                target[i] = p;
+            } else {
+                target[i] = a << 24 | (((p >> 16) & 0xFF) * a + 127) / 255 << 16
+                        | (((p >> 8) & 0xFF) * a + 127) / 255 << 8 | ((p & 0xFF) * a + 127) / 255;
+            }
+        }
+    }
+
+    private static void unpremultiply(int[] pixels, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            int p = pixels[i];
+            int a = p >>> 24;
+            if (a == 255) {
+                continue;
+            }
+            if (a == 0) {
+                pixels[i] = 0;
+                continue;
+            }
+            pixels[i] = a << 24 | Math.min(255, (((p >> 16) & 0xFF) * 255 + a / 2) / a) << 16
+                    | Math.min(255, (((p >> 8) & 0xFF) * 255 + a / 2) / a) << 8
+                    | Math.min(255, ((p & 0xFF) * 255 + a / 2) / a);
+        }
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : Math.min(255, value);
+    }
+
+    /**
+     * Runs {@code row} for every row in {@code [0, rows)}, in bands of {@link #BAND_ROWS}
+     * spread over up to {@code threads} workers on the {@link ComputePool}.
+     */
+    private static void forEachBand(int threads, int rows, IntConsumer row) {
+        if (threads <= 1 || rows <= BAND_ROWS) {
+            for (int y = 0; y < rows; y++) {
+                row.accept(y);
+            }
+            return;
+        }
+
+        int bands = (rows + BAND_ROWS - 1) / BAND_ROWS;
+        ComputePool.forEach(threads, bands, band -> {
+            int to = Math.min(rows, (band + 1) * BAND_ROWS);
+            for (int y = band * BAND_ROWS; y < to; y++) {
+                row.accept(y);
+            }
+        });
+    }
+}
@@ -0,0 +1,482 @@
+package me.revqz.minhutBillboards.billboard;
+
+import me.revqz.minhutBillboards.MinhutBillboards;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * A billboard showing a changing feed instead of a fixed image: an image file in
+ * {@code images} that is rewritten in place, a folder there whose newest image is
+ * shown, or an MJPEG stream (an {@code .mjpeg} file or pipe, or an HTTP URL).
+ * <p>
+ * A reader thread collects encoded frames; they are decoded, dithered and diffed
+ * against the previous frame on the {@link ImageExecutor}, one at a time and on
+ * that worker alone, so feeds don't compete with image loads for the compute pool.
+ * A frame that arrives while an older one is still waiting replaces it, so when
+ * processing falls behind the feed skips ahead instead of queueing stale frames.
+ */
+public class LiveFeed {
+
+    /**
+     * A processed frame: all tiles, indexed {@code [x][y]}, and per-tile deltas from the
+     * previous frame ({@code null} where a tile did not change). {@code deltas} is
+     * {@code null} for the first frame, which has to be drawn in full.
+     */
+    record Frame(byte[][][] tiles, TileAnimation.TileDelta[][] deltas, int changedTiles) {
+    }
+
+    public record Stats(String source, double fps, long framesShown, long framesDropped, boolean paused) {
+    }
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+    /** Frames {@link #getFps()} averages over. */
+    private static final int FPS_WINDOW = 16;
+
+    private final String name;
+    private final String source;
+    private final int width;
+    private final int height;
+    private final BiConsumer<LiveFeed, Frame> onFrame;
+
+    private final String ditheringMode;
+    private final String resizeFilter;
+    private final String colorMatching;
+    private final long pollMillis;
+    private final long frameIntervalNanos;
+    private final long retryMillis;
+    private final long timeoutMillis;
+
+    private final AtomicReference<byte[]> pending = new AtomicReference<>();
+    private final AtomicBoolean processing = new AtomicBoolean();
+    private volatile long nextFrameAt;
+    /** Last processed frame, only touched by the (one at a time) processing job. */
+    private byte[][][] previous;
+
+    private volatile boolean running;
+    private volatile boolean paused;
+    private Thread reader;
+    private volatile Closeable openStream;
+
+    private final LongAdder framesReceived = new LongAdder();
+    private final LongAdder framesDropped = new LongAdder();
+    private long framesShown;
+    private final long[] shownAt = new long[FPS_WINDOW];
+
+    LiveFeed(String name, String source, int width, int height, BiConsumer<LiveFeed, Frame> onFrame) {
+        this.name = name;
+        this.source = source;
+        this.width = width;
+        this.height = height;
+        this.onFrame = onFrame;
+
+        FileConfiguration config = MinhutBillboards.getInstance().getConfig();
+        String dithering = config.getString("feeds.dithering", "ordered").toLowerCase();
+        this.ditheringMode = dithering.equals("none") || dithering.equals("ordered") ? dithering : "floyd_steinberg";
+        this.resizeFilter = ImageLoader.getResizeFilter();
+        this.colorMatching = ImageLoader.getColorMatching();
+        this.pollMillis = Math.max(50, config.getLong("feeds.poll_ms", 250));
+        this.frameIntervalNanos = 1_000_000_000L / Math.max(1, config.getInt("feeds.max_fps", 10));
+        this.retryMillis = Math.max(1, config.getLong("feeds.retry_seconds", 5)) * 1000;
+        this.timeoutMillis = Math.max(1, config.getLong("feeds.timeout_seconds", 15)) * 1000;
+    }
+
+    void start() {
+        running = true;
+        reader = new Thread(this::read, "MinhutBillboards-Feed-" + name);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    void stop() {
+        running = false;
+        pending.set(null);
+        if (reader != null) {
+            reader.interrupt();
+        }
+        closeStream();
+    }
+
+    /**
+     * Stops processing while nobody can see the billboard; the newest frame received in
+     * the meantime is shown on resume.
+     */
+    void setPaused(boolean paused) {
+        this.paused = paused;
+        if (!paused) {
+            drain();
+        }
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    private boolean isStream() {
+        String lower = source.toLowerCase();
+        return lower.startsWith("http://") || lower.startsWith("https://") || lower.endsWith(".mjpeg")
+                || lower.endsWith(".mjpg");
+    }
+
+    private File getFile() throws IOException {
+        File file = ImageLoader.resolveImageFile(source);
+        if (file == null) {
+            throw new IOException("Feed source is outside the images folder: " + source);
+        }
+        return file;
+    }
+
+    private void read() {
+        while (running) {
+            try {
+                if (isStream()) {
+                    readStream();
+                } else {
+                    poll();
+                }
+                // A recording reached its end: play it again right away.
+                continue;
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                if (!running) {
+                    return;
+                }
+                MinhutBillboards.getInstance().getLogger().warning("Feed " + name + " failed, retrying in "
+                        + retryMillis / 1000 + "s: " + e.getMessage());
+            } finally {
+                closeStream();
+            }
+
+            try {
+                Thread.sleep(retryMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Watches a file, or the newest file in a folder, and reads it once it has been
+     * rewritten and stopped changing for one poll, so half-written images are skipped.
+     */
+    private void poll() throws IOException, InterruptedException {
+        File seen = null;
+        long seenModified = -1;
+        long seenLength = -1;
+        boolean shown = false;
+
+        while (running) {
+            File file = getFile();
+            if (file.isDirectory()) {
+                file = newestImage(file);
+            } else if (!file.isFile()) {
+                throw new IOException("Feed source not found: " + file.getPath());
+            }
+
+            if (file != null) {
+                long modified = file.lastModified();
+                long length = file.length();
+                if (!file.equals(seen) || modified != seenModified || length != seenLength) {
+                    seen = file;
+                    seenModified = modified;
+                    seenLength = length;
+                    shown = false;
+                } else if (!shown) {
+                    shown = true;
+                    if (length > ImageLoader.getMaxSourceBytes()) {
+                        MinhutBillboards.getInstance().getLogger().warning("Feed " + name + " frame is larger than "
+                                + (ImageLoader.getMaxSourceBytes() / 1024 / 1024) + " MB: " + file.getName());
+                    } else {
+                        offer(Files.readAllBytes(file.toPath()));
+                    }
+                }
+            }
+            Thread.sleep(pollMillis);
+        }
+    }
+
+    private static File newestImage(File folder) {
+        File newest = null;
+        File[] files = folder.listFiles(file -> file.isFile() && !file.getName().startsWith("."));
+        if (files != null) {
+            for (File file : files) {
+                if (newest == null || file.lastModified() > newest.lastModified()) {
+                    newest = file;
+                }
+            }
+        }
+        return newest;
+    }
+
+    /**
+     * Splits an MJPEG stream into JPEG frames. A regular file is a recording: it is
+     * paced at {@code feeds.max_fps} and loops. Pipes and HTTP streams deliver at their
+     * own rate and are reopened when they end.
+     */
+    private void readStream() throws IOException, InterruptedException {
+        String lower = source.toLowerCase();
+        InputStream in;
+        boolean recording = false;
+        AtomicLong lastRead = new AtomicLong(System.nanoTime());
+        AtomicBoolean stalled = new AtomicBoolean();
+        if (lower.startsWith("http://") || lower.startsWith("https://")) {
+            in = openHttp();
+            watchIdle(in, lastRead, stalled, TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+        } else {
+            File file = getFile();
+            if (!file.exists() || file.isDirectory()) {
+                throw new IOException("Feed source not found: " + file.getPath());
+            }
+            recording = file.isFile();
+            in = new FileInputStream(file);
+        }
+        openStream = in;
+
+        try (in) {
+            byte[] buffer = new byte[BUFFER_BYTES];
+            ByteArrayOutputStream frame = new ByteArrayOutputStream(BUFFER_BYTES);
+            long maxBytes = ImageLoader.getMaxSourceBytes();
+            int depth = 0;
+            int last = -1;
+            int read;
+            while (running && (read = in.read(buffer)) != -1) {
+                lastRead.set(System.nanoTime());
+                int start = depth > 0 ? 0 : -1;
+                for (int i = 0; i < read; i++) {
+                    int b = buffer[i] & 0xFF;
+                    if (last == 0xFF && b == 0xD8) {
+                        // Start of image; nested ones are EXIF thumbnails.
+                        if (depth++ == 0) {
+                            frame.reset();
+                            frame.write(0xFF);
+                            start = i;
+                        }
+                    } else if (last == 0xFF && b == 0xD9 && depth > 0 && --depth == 0) {
+                        frame.write(buffer, start, i + 1 - start);
+                        start = -1;
+                        offer(frame.toByteArray());
+                        if (recording) {
+                            Thread.sleep(frameIntervalNanos / 1_000_000);
+                        }
+                    }
+                    last = b;
+                }
+                if (start >= 0) {
+                    frame.write(buffer, start, read - start);
+                }
+                if (frame.size() > maxBytes) {
+                    // Not a frame we can use; resynchronise on the next start marker.
+                    depth = 0;
+                    frame.reset();
+                }
+            }
+        } catch (IOException e) {
+            if (stalled.get()) {
+                throw new IOException("Feed stream sent nothing for " + timeoutMillis / 1000 + "s", e);
+            }
+            throw e;
+        }
+        if (running && !recording) {
+            throw new IOException("Feed stream ended");
+        }
+    }
+
+    /**
+     * Closes an HTTP stream once it has sent nothing for {@code feeds.timeout_seconds}.
+     * The request timeout only covers the headers, so without this a server that stops
+     * sending would leave the reader blocked until the plugin is disabled.
+     */
+    private void watchIdle(InputStream in, AtomicLong lastRead, AtomicBoolean stalled, long delayNanos) {
+        TimerPool.schedule(() -> {
+            if (openStream != in) {
+                return;
+            }
+            long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            long idle = System.nanoTime() - lastRead.get();
+            if (idle < timeoutNanos) {
+                watchIdle(in, lastRead, stalled, timeoutNanos - idle);
+                return;
+            }
+            stalled.set(true);
+            try {
+                in.close();
+            } catch (IOException ignored) {
+            }
+        }, delayNanos);
+    }
+
+    private InputStream openHttp() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(source))
+                .timeout(Duration.ofMillis(timeoutMillis))
+                .GET()
+                .build();
+        HttpResponse<InputStream> response = CLIENT.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        int status = response.statusCode();
+        if (status < 200 || status >= 300) {
+            response.body().close();
+            throw new IOException("HTTP " + status + " from " + source);
+        }
+        return response.body();
+    }
+
+    private void closeStream() {
+        Closeable stream = openStream;
+        openStream = null;
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Hands an encoded frame to processing. Latest wins: a frame still waiting for
+     * its turn is replaced and counted as dropped.
+     */
+    private void offer(byte[] data) {
+        framesReceived.increment();
+        if (pending.getAndSet(data) != null && !paused) {
+            framesDropped.increment();
+        }
+        drain();
+    }
+
+    private void drain() {
+        if (!running || paused || pending.get() == null || !processing.compareAndSet(false, true)) {
+            return;
+        }
+
+        long wait = nextFrameAt - System.nanoTime();
+        if (wait > 0) {
+            // Over feeds.max_fps: look again once the interval is up, taking whatever is newest then.
+            TimerPool.schedule(() -> {
+                processing.set(false);
+                drain();
+            }, wait);
+            return;
+        }
+
+        byte[] data = pending.getAndSet(null);
+        if (data == null) {
+            processing.set(false);
+            return;
+        }
+        nextFrameAt = System.nanoTime() + frameIntervalNanos;
+
+        ImageExecutor.getInstance().submit(() -> process(data)).whenComplete((frame, error) -> {
+            try {
+                if (error != null) {
+                    framesDropped.increment();
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (!(cause instanceof RejectedExecutionException) && !(cause instanceof CancellationException)) {
+                        MinhutBillboards.getInstance().getLogger().warning("Feed " + name + " frame failed: "
+                                + cause);
+                    }
+                } else if (frame == null) {
+                    framesDropped.increment();
+                } else if (running) {
+                    onFrame.accept(this, frame);
+                }
+            } finally {
+                processing.set(false);
+                drain();
+            }
+        });
+    }
+
+    private Frame process(byte[] data) {
+        long start = PipelineMetrics.start();
+        BufferedImage image = ImageLoader.decodeImage(data, source, width * ImageLoader.MAP_SIZE,
+                height * ImageLoader.MAP_SIZE);
+        if (image == null) {
+            return null;
+        }
+        byte[][][] tiles = ImageLoader.processImage(image, width, height, ditheringMode, resizeFilter,
+                colorMatching, 1);
+
+        TileAnimation.TileDelta[][] deltas = null;
+        int changed = width * height;
+        if (previous != null) {
+            deltas = new TileAnimation.TileDelta[width][height];
+            changed = 0;
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    deltas[x][y] = TileAnimation.TileDelta.between(previous[x][y], tiles[x][y]);
+                    if (deltas[x][y] != null) {
+                        changed++;
+                    }
+                }
+            }
+        }
+        previous = tiles;
+        PipelineMetrics.record(PipelineMetrics.Stage.FEED_FRAME, start);
+        return new Frame(tiles, deltas, changed);
+    }
+
+    /**
+     * Called on the main thread once a frame has been pushed to the renderers.
+     */
+    void markShown() {
+        shownAt[(int) (framesShown++ % FPS_WINDOW)] = System.nanoTime();
+    }
+
+    /**
+     * Frames shown per second over the last few frames, or 0 if the feed has stalled.
+     */
+    public double getFps() {
+        int count = (int) Math.min(framesShown, FPS_WINDOW);
+        if (count < 2) {
+            return 0;
+        }
+        long newest = shownAt[(int) ((framesShown - 1) % FPS_WINDOW)];
+        long oldest = shownAt[(int) ((framesShown - count) % FPS_WINDOW)];
+        if (System.nanoTime() - newest > TimeUnit.SECONDS.toNanos(5) || newest == oldest) {
+            return 0;
+        }
+        return (count - 1) * 1_000_000_000.0 / (newest - oldest);
+    }
+
+    public Stats getStats() {
+        return new Stats(source, getFps(), framesShown, framesDropped.sum(), paused);
+    }
+
+    long getFramesReceived() {
+        return framesReceived.sum();
+    }
+
+    long getFramesShown() {
+        return framesShown;
+    }
+
+    long getFramesDropped() {
+        return framesDropped.sum();
+    }
+}
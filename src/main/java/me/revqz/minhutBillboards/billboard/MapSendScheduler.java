@@ -0,0 +1,180 @@
+package me.revqz.minhutBillboards.billboard;
+
+import me.revqz.minhutBillboards.MinhutBillboards;
+import org.bukkit.Bukkit;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Spreads map pixel uploads for each player over several ticks. Every tick a player
+ * may be sent up to {@code streaming.bytes_per_tick} bytes of map pixels (one byte
+ * per pixel); a render that doesn't fit is skipped and retried on the map's next
+ * update. Waiting tiles are served best first by how close they are to the player's
+ * view direction, so the wall in front of the player fills in before the edges.
+ */
+class MapSendScheduler {
+
+    /** Maps in item frames are offered to each player every 10 ticks. */
+    private static final int UPDATE_INTERVAL = 10;
+    /** Waiting tiles not asked for again within this many ticks are forgotten. */
+    private static final int EXPIRE_TICKS = UPDATE_INTERVAL * 3;
+
+    /** Most central first; ties in the order the tiles started waiting. */
+    private static final Comparator<Waiting> BY_SCORE = Comparator.comparingDouble(Waiting::score).reversed()
+            .thenComparingLong(Waiting::order);
+
+    private final Map<UUID, PlayerBudget> players = new HashMap<>();
+    private int bytesPerTick;
+    private long nextOrder;
+
+    private long bytesSent;
+    private long rendersSent;
+    private long rendersDeferred;
+
+    private static final class PlayerBudget {
+        int tick = Integer.MIN_VALUE;
+        int bytesLeft;
+        final Map<BillboardMapRenderer, Waiting> waiting = new IdentityHashMap<>();
+        /** The same tiles as {@link #waiting}, ordered {@link #BY_SCORE}. */
+        final TreeSet<Waiting> ranked = new TreeSet<>(BY_SCORE);
+
+        void put(Waiting entry) {
+            Waiting previous = waiting.put(entry.renderer(), entry);
+            if (previous != null) {
+                ranked.remove(previous);
+            }
+            ranked.add(entry);
+        }
+
+        void remove(BillboardMapRenderer renderer) {
+            Waiting previous = waiting.remove(renderer);
+            if (previous != null) {
+                ranked.remove(previous);
+            }
+        }
+
+        void expire(int tick) {
+            Iterator<Waiting> iterator = waiting.values().iterator();
+            while (iterator.hasNext()) {
+                Waiting entry = iterator.next();
+                if (tick - entry.tick() > EXPIRE_TICKS) {
+                    iterator.remove();
+                    ranked.remove(entry);
+                }
+            }
+        }
+    }
+
+    private record Waiting(BillboardMapRenderer renderer, double score, int tick, long order) {
+    }
+
+    MapSendScheduler() {
+        reload();
+    }
+
+    void reload() {
+        bytesPerTick = Math.max(0, MinhutBillboards.getInstance().getConfig()
+                .getInt("streaming.bytes_per_tick", 32768));
+    }
+
+    /**
+     * Asks to send {@code bytes} of pixels from a renderer to a player now.
+     *
+     * @param score how central the tile is in the player's view, higher first
+     * @return whether the renderer may draw this update
+     */
+    boolean tryAcquire(UUID playerId, BillboardMapRenderer renderer, int bytes, double score) {
+        if (bytesPerTick == 0) {
+            record(bytes);
+            return true;
+        }
+
+        PlayerBudget budget = players.computeIfAbsent(playerId, id -> new PlayerBudget());
+        int tick = Bukkit.getCurrentTick();
+        if (budget.tick != tick) {
+            budget.tick = tick;
+            budget.bytesLeft = bytesPerTick;
+            budget.expire(tick);
+        }
+
+        // Even an oversized render goes through as the first one of a tick, so nothing stalls.
+        boolean fits = bytes <= budget.bytesLeft || budget.bytesLeft == bytesPerTick;
+        if (fits && hasTurn(budget, renderer, score)) {
+            budget.bytesLeft -= Math.min(bytes, budget.bytesLeft);
+            budget.remove(renderer);
+            record(bytes);
+            return true;
+        }
+
+        budget.put(new Waiting(renderer, score, tick, nextOrder++));
+        rendersDeferred++;
+        return false;
+    }
+
+    /**
+     * Whether fewer other waiting tiles are more central than this one than the budget
+     * can send within one update interval. Only those may go ahead, so better placed
+     * tiles whose update comes a few ticks later keep their turn. Walks the waiting
+     * tiles best first and stops at that many, rather than scanning all of them.
+     */
+    private boolean hasTurn(PlayerBudget budget, BillboardMapRenderer renderer, double score) {
+        int limit = getTilesPerInterval();
+        int ahead = 0;
+        for (Waiting waiting : budget.ranked) {
+            if (waiting.score() <= score) {
+                break;
+            }
+            if (waiting.renderer() != renderer && ++ahead >= limit) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int getTilesPerInterval() {
+        return Math.max(1, bytesPerTick * UPDATE_INTERVAL / ImageLoader.TILE_BYTES);
+    }
+
+    private void record(int bytes) {
+        bytesSent += bytes;
+        rendersSent++;
+    }
+
+    void forget(UUID playerId) {
+        players.remove(playerId);
+    }
+
+    void clear() {
+        players.clear();
+    }
+
+    int getBytesPerTick() {
+        return bytesPerTick;
+    }
+
+    long getBytesSent() {
+        return bytesSent;
+    }
+
+    long getRendersSent() {
+        return rendersSent;
+    }
+
+    long getRendersDeferred() {
+        return rendersDeferred;
+    }
+
+    int getWaitingCount() {
+        int count = 0;
+        for (PlayerBudget budget : players.values()) {
+            count += budget.waiting.size();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,155 @@
+package me.revqz.minhutBillboards.billboard;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Nearest-colour search over the map palette in one {@link ColorDithering.ColorMatching}
+ * space. Palette colours are converted once and stored in a balanced k-d tree, so a
+ * query visits a handful of entries instead of scanning all of them; this is what
+ * makes filling the dithering lookup table with a perceptual metric cheap.
+ */
+final class PaletteIndex {
+
+    private final ColorDithering.ColorMatching matching;
+    /** Converted colours, three per node, in implicit tree order (median first). */
+    private final double[] points;
+    /** Palette position of each node. */
+    private final int[] entries;
+
+    PaletteIndex(int[] palette, ColorDithering.ColorMatching matching) {
+        this.matching = matching;
+        int size = palette.length;
+        double[][] converted = new double[size][3];
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            int rgb = palette[i];
+            convert(matching, (rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF, converted[i]);
+            order[i] = i;
+        }
+
+        this.points = new double[size * 3];
+        this.entries = new int[size];
+        build(converted, order, 0, size, 0);
+    }
+
+    /**
+     * Lays out {@code order[from, to)} as a subtree whose root is the median along {@code axis}.
+     * Children of the root at {@code mid} are the ranges on either side of it.
+     */
+    private void build(double[][] converted, Integer[] order, int from, int to, int axis) {
+        if (from >= to) {
+            return;
+        }
+        Arrays.sort(order, from, to, Comparator.comparingDouble(i -> converted[i][axis]));
+        int mid = (from + to) >>> 1;
+        int entry = order[mid];
+        entries[mid] = entry;
+        System.arraycopy(converted[entry], 0, points, mid * 3, 3);
+
+        int next = (axis + 1) % 3;
+        build(converted, order, from, mid, next);
+        build(converted, order, mid + 1, to, next);
+    }
+
+    /**
+     * Palette position closest to the given colour. Channels may be fractional.
+     */
+    int nearest(double r, double g, double b) {
+        double[] query = new double[3];
+        convert(matching, r, g, b, query);
+        Search search = new Search(query);
+        search.visit(0, entries.length, 0);
+        return entries[search.best];
+    }
+
+    private final class Search {
+        final double[] query;
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+
+        Search(double[] query) {
+            this.query = query;
+        }
+
+        void visit(int from, int to, int axis) {
+            if (from >= to) {
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            int p = mid * 3;
+            double d0 = query[0] - points[p];
+            double d1 = query[1] - points[p + 1];
+            double d2 = query[2] - points[p + 2];
+            double distance = d0 * d0 + d1 * d1 + d2 * d2;
+            // Ties go to the lower palette position, matching a linear scan.
+            if (distance < bestDistance || (distance == bestDistance && entries[mid] < entries[best])) {
+                bestDistance = distance;
+                best = mid;
+            }
+
+            double split = query[axis] - points[p + axis];
+            int next = (axis + 1) % 3;
+            if (split < 0) {
+                visit(from, mid, next);
+                if (split * split <= bestDistance) {
+                    visit(mid + 1, to, next);
+                }
+            } else {
+                visit(mid + 1, to, next);
+                if (split * split <= bestDistance) {
+                    visit(from, mid, next);
+                }
+            }
+        }
+    }
+
+    /**
+     * Converts an sRGB colour (0-255 channels) into the space {@code matching} measures
+     * plain Euclidean distance in.
+     */
+    static void convert(ColorDithering.ColorMatching matching, double r, double g, double b, double[] out) {
+        switch (matching) {
+            case RGB -> {
+                out[0] = r * ColorDithering.LUMA_R;
+                out[1] = g * ColorDithering.LUMA_G;
+                out[2] = b * ColorDithering.LUMA_B;
+            }
+            case CIELAB -> toCielab(linear(r), linear(g), linear(b), out);
+            case OKLAB -> toOklab(linear(r), linear(g), linear(b), out);
+        }
+    }
+
+    private static double linear(double channel) {
+        double c = channel / 255.0;
+        return c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4);
+    }
+
+    /**
+     * CIE L*a*b* under D65, so distances are CIE76 ΔE.
+     */
+    private static void toCielab(double r, double g, double b, double[] out) {
+        double x = labCurve((0.4124564 * r + 0.3575761 * g + 0.1804375 * b) / 0.95047);
+        double y = labCurve(0.2126729 * r + 0.7151522 * g + 0.0721750 * b);
+        double z = labCurve((0.0193339 * r + 0.1191920 * g + 0.9503041 * b) / 1.08883);
+        out[0] = 116 * y - 16;
+        out[1] = 500 * (x - y);
+        out[2] = 200 * (y - z);
+    }
+
+    private static double labCurve(double t) {
+        return t > 216.0 / 24389 ? Math.cbrt(t) : (24389.0 / 27 * t + 16) / 116;
+    }
+
+    /**
+     * Björn Ottosson's OKLab, scaled to roughly the range of CIELAB.
+     */
+    private static void toOklab(double r, double g, double b, double[] out) {
+        double l = Math.cbrt(0.4122214708 * r + 0.5363325363 * g + 0.0514459929 * b);
+        double m = Math.cbrt(0.2119034982 * r + 0.6806995451 * g + 0.1073969566 * b);
+        double s = Math.cbrt(0.0883024619 * r + 0.2817188376 * g + 0.6299787005 * b);
+        out[0] = 100 * (0.2104542553 * l + 0.7936177850 * m - 0.0040720468 * s);
+        out[1] = 100 * (1.9779984951 * l - 2.4285922050 * m + 0.4505937099 * s);
+        out[2] = 100 * (0.0259040371 * l + 0.7827717662 * m - 0.8086757660 * s);
+    }
+}
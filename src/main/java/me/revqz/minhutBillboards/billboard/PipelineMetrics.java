@@ -0,0 +1,184 @@
+package me.revqz.minhutBillboards.billboard;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timing histograms for each stage of loading and spawning billboards, and for the
+ * periodic tasks on the main thread. Recording is lock-free so image workers and the
+ * main thread can record concurrently; durations land in power-of-two microsecond
+ * buckets, so percentiles are accurate to within a factor of two.
+ */
+public class PipelineMetrics {
+
+    public enum Stage {
+        LOAD("load"),
+        CACHE_LOOKUP("cache_lookup"),
+        DECODE("decode"),
+        RESIZE("resize"),
+        DITHER("dither"),
+        SPLIT("split"),
+        CACHE_STORE("cache_store"),
+        PIPELINE("pipeline"),
+        PREWARM("prewarm"),
+        FEED_FRAME("feed_frame"),
+        BLOCKS("blocks"),
+        FRAMES("frames"),
+        WALL_JOB_TICK("wall_job_tick"),
+        GLOW_TASK("glow_task"),
+        ANIMATION_TICK("animation_tick");
+
+        private final String id;
+
+        Stage(String id) {
+            this.id = id;
+        }
+
+        public String getId() {
+            return id;
+        }
+    }
+
+    /**
+     * Point-in-time view of one histogram, in milliseconds.
+     */
+    public record Summary(long count, double meanMillis, double p50Millis, double p95Millis, double p99Millis,
+            double maxMillis) {
+    }
+
+    private static final Map<Stage, Histogram> HISTOGRAMS = new EnumMap<>(Stage.class);
+
+    static {
+        for (Stage stage : Stage.values()) {
+            HISTOGRAMS.put(stage, new Histogram());
+        }
+    }
+
+    /**
+     * Start time to pass to {@link #record(Stage, long)}.
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos} against a stage.
+     */
+    public static void record(Stage stage, long startNanos) {
+        HISTOGRAMS.get(stage).record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records a duration measured by the caller, e.g. work spread over several ticks.
+     */
+    public static void recordDuration(Stage stage, long nanos) {
+        HISTOGRAMS.get(stage).record(nanos);
+    }
+
+    public static Summary summarize(Stage stage) {
+        return HISTOGRAMS.get(stage).summarize();
+    }
+
+    public static void reset() {
+        for (Histogram histogram : HISTOGRAMS.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Machine-readable dump of every stage plus the given counters, as JSON.
+     */
+    public static String toJson(Map<String, Long> counters) {
+        StringBuilder json = new StringBuilder("{\n  \"timestamp\": ").append(System.currentTimeMillis())
+                .append(",\n  \"counters\": {");
+        String separator = "\n";
+        for (Map.Entry<String, Long> counter : counters.entrySet()) {
+            json.append(separator).append("    \"").append(counter.getKey()).append("\": ").append(counter.getValue());
+            separator = ",\n";
+        }
+        json.append("\n  },\n  \"stages\": {");
+        separator = "\n";
+        for (Stage stage : Stage.values()) {
+            Summary summary = summarize(stage);
+            json.append(separator).append("    \"").append(stage.getId()).append("\": {")
+                    .append("\"count\": ").append(summary.count())
+                    .append(", \"mean_ms\": ").append(format(summary.meanMillis()))
+                    .append(", \"p50_ms\": ").append(format(summary.p50Millis()))
+                    .append(", \"p95_ms\": ").append(format(summary.p95Millis()))
+                    .append(", \"p99_ms\": ").append(format(summary.p99Millis()))
+                    .append(", \"max_ms\": ").append(format(summary.maxMillis()))
+                    .append('}');
+            separator = ",\n";
+        }
+        return json.append("\n  }\n}\n").toString();
+    }
+
+    private static String format(double millis) {
+        return String.format(Locale.ROOT, "%.3f", millis);
+    }
+
+    private static final class Histogram {
+
+        /** Bucket 0 holds sub-microsecond times, bucket {@code i} times below {@code 2^i} µs. */
+        private static final int BUCKETS = 40;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            long micros = Math.max(0, nanos) / 1000;
+            int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+            buckets.incrementAndGet(bucket);
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        Summary summarize() {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+                total += counts[i];
+            }
+            if (total == 0) {
+                return new Summary(0, 0, 0, 0, 0, 0);
+            }
+
+            double max = maxNanos.get() / 1_000_000.0;
+            return new Summary(total, totalNanos.sum() / 1_000_000.0 / count.sum(),
+                    percentile(counts, total, 0.50, max), percentile(counts, total, 0.95, max),
+                    percentile(counts, total, 0.99, max), max);
+        }
+
+        /**
+         * Upper bound of the bucket holding the given percentile, capped at the maximum.
+         */
+        private static double percentile(long[] counts, long total, double percentile, double max) {
+            long rank = (long) Math.ceil(percentile * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(max, (1L << i) / 1000.0);
+                }
+            }
+            return max;
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+            count.reset();
+            totalNanos.reset();
+            maxNanos.set(0);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package me.revqz.minhutBillboards.billboard;
+
+import me.revqz.minhutBillboards.MinhutBillboards;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+
+/**
+ * Processes the {@code billboards:} presets into the tile cache in the background,
+ * so their first spawn doesn't wait for loading and dithering. At most
+ * {@code prewarm.core_share} of the cores are used: presets run a few at a time,
+ * with the worker threads split between them. A spawn that needs a preset still
+ * being warmed joins its job (starting it right away if it was still queued)
+ * instead of processing the image a second time.
+ */
+class Prewarmer {
+
+    private record Preset(String name, String source, int width, int height) {
+    }
+
+    private static final class Entry {
+        final Preset preset;
+        final String key;
+        final CompletableFuture<TileSet> result = new CompletableFuture<>();
+        CompletableFuture<TileSet> job;
+        long startNanos;
+
+        Entry(Preset preset, String key) {
+            this.preset = preset;
+            this.key = key;
+        }
+    }
+
+    /** Presets queued or running, by {@link #key}. */
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Deque<Entry> queue = new ArrayDeque<>();
+    private int running;
+    private int concurrency;
+    private int threadsPerJob;
+
+    private long phaseStart;
+    private int phaseTotal;
+    private int phaseFailed;
+
+    /**
+     * Queues every configured preset with an image that isn't already being warmed.
+     * Call on the main thread.
+     */
+    synchronized void start() {
+        if (!MinhutBillboards.getInstance().getConfig().getBoolean("prewarm.enabled", true)) {
+            return;
+        }
+        if (!TileCache.isEnabled()) {
+            getLogger().info("Skipping preset warm-up, the tile cache is disabled");
+            return;
+        }
+
+        List<Preset> presets = readPresets();
+        int added = 0;
+        for (Preset preset : presets) {
+            String key = key(preset.source(), preset.width(), preset.height());
+            if (!entries.containsKey(key)) {
+                Entry entry = new Entry(preset, key);
+                entries.put(key, entry);
+                queue.add(entry);
+                added++;
+            }
+        }
+        if (added == 0) {
+            return;
+        }
+
+        double share = MinhutBillboards.getInstance().getConfig().getDouble("prewarm.core_share", 0.5);
+        int cores = Runtime.getRuntime().availableProcessors();
+        int workers = Math.max(1, (int) Math.round(cores * Math.min(1, Math.max(0, share))));
+        concurrency = Math.min(workers, entries.size());
+        threadsPerJob = Math.max(1, workers / concurrency);
+
+        if (running == 0) {
+            phaseStart = System.nanoTime();
+            phaseTotal = 0;
+            phaseFailed = 0;
+        }
+        phaseTotal += added;
+        getLogger().info("Warming " + added + " billboard presets on " + workers + " of " + cores + " cores...");
+        fill();
+    }
+
+    private List<Preset> readPresets() {
+        List<Preset> presets = new ArrayList<>();
+        ConfigurationSection billboards = MinhutBillboards.getInstance().getConfig()
+                .getConfigurationSection("billboards");
+        if (billboards == null) {
+            return presets;
+        }
+        for (String name : billboards.getKeys(false)) {
+            ConfigurationSection preset = billboards.getConfigurationSection(name);
+            if (preset == null) {
+                continue;
+            }
+            String source = preset.getString("image", "");
+            String feed = preset.getString("feed", "");
+            if (source.isEmpty() || !feed.isEmpty()) {
+                continue;
+            }
+            presets.add(new Preset(name, source, preset.getInt("width", 6), preset.getInt("height", 5)));
+        }
+        return presets;
+    }
+
+    /**
+     * Cache key of a job: the same source at the same size under the current settings.
+     */
+    private static String key(String source, int width, int height) {
+        return source + '|' + width + 'x' + height + '|' + ImageLoader.getDitheringMode() + '|'
+                + ImageLoader.getResizeFilter() + '|' + ImageLoader.getColorMatching();
+    }
+
+    private void fill() {
+        while (running < concurrency && !queue.isEmpty()) {
+            run(queue.poll());
+        }
+    }
+
+    private void run(Entry entry) {
+        running++;
+        entry.startNanos = System.nanoTime();
+        Preset preset = entry.preset;
+        entry.job = ImageLoader.loadAndProcessImage(preset.source(), preset.width(), preset.height(),
+                threadsPerJob);
+        entry.job.whenComplete((tiles, error) -> finish(entry, tiles, error));
+    }
+
+    private synchronized void finish(Entry entry, TileSet tiles, Throwable error) {
+        running--;
+        Preset preset = entry.preset;
+        entries.remove(entry.key, entry);
+
+        long nanos = System.nanoTime() - entry.startNanos;
+        if (error instanceof CancellationException) {
+            entry.result.cancel(false);
+            return;
+        }
+        if (error != null || tiles == null) {
+            phaseFailed++;
+            getLogger().warning("Failed to warm preset " + preset.name() + (error != null ? ": " + error : ""));
+            if (error != null) {
+                entry.result.completeExceptionally(error);
+            } else {
+                entry.result.complete(null);
+            }
+        } else {
+            PipelineMetrics.recordDuration(PipelineMetrics.Stage.PREWARM, nanos);
+            getLogger().info("Warmed preset " + preset.name() + " (" + preset.width() + "x" + preset.height()
+                    + ") in " + nanos / 1_000_000 + "ms");
+            entry.result.complete(tiles);
+        }
+
+        fill();
+        if (running == 0 && queue.isEmpty()) {
+            getLogger().info("Warmed " + (phaseTotal - phaseFailed) + "/" + phaseTotal + " billboard presets in "
+                    + (System.nanoTime() - phaseStart) / 1_000_000 + "ms");
+        }
+    }
+
+    /**
+     * The warm-up job for this image and size, if one is queued or running. A queued
+     * one starts right away, since a spawn is now waiting for it.
+     *
+     * @return a future of the job's tiles that may be cancelled without affecting the
+     *         job, or {@code null} if there is none
+     */
+    synchronized CompletableFuture<TileSet> join(String source, int width, int height) {
+        Entry entry = entries.get(key(source, width, height));
+        if (entry == null) {
+            return null;
+        }
+        if (entry.job == null && queue.remove(entry)) {
+            run(entry);
+        }
+        return entry.result.thenApply(tiles -> tiles);
+    }
+
+    synchronized int getPendingCount() {
+        return entries.size();
+    }
+
+    synchronized void shutdown() {
+        queue.clear();
+        for (Entry entry : new ArrayList<>(entries.values())) {
+            if (entry.job != null) {
+                entry.job.cancel(false);
+            }
+            entry.result.cancel(false);
+        }
+        entries.clear();
+    }
+
+    private static Logger getLogger() {
+        return MinhutBillboards.getInstance().getLogger();
+    }
+}
@@ -0,0 +1,275 @@
+package me.revqz.minhutBillboards.billboard;
+
+import me.revqz.minhutBillboards.MinhutBillboards;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * On-disk cache of downloaded image sources under {@code cache/sources}. Each entry
+ * keeps the ETag and Last-Modified of the response it came from, so the next load of
+ * the same URL sends a conditional request and reuses the stored bytes on
+ * {@code 304 Not Modified}. Downloads are streamed to disk under a size cap and deadline.
+ */
+public class SourceCache {
+
+    private static final int MAGIC = 0x4D425343; // "MBSC"
+    private static final int FORMAT_VERSION = 1;
+    private static final String EXTENSION = ".src";
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private record Entry(String etag, String lastModified, byte[] body) {
+    }
+
+    /**
+     * Downloads a URL through the cache configured under {@code downloads}.
+     */
+    public static byte[] fetch(String url) throws IOException {
+        boolean enabled = MinhutBillboards.getInstance().getConfig().getBoolean("downloads.cache", true);
+        int timeoutSeconds = MinhutBillboards.getInstance().getConfig().getInt("downloads.timeout_seconds", 15);
+
+        byte[] data = fetch(URI.create(url), enabled ? getCacheFolder() : null, ImageLoader.getMaxSourceBytes(),
+                Duration.ofSeconds(Math.max(1, timeoutSeconds)), MinhutBillboards.getInstance().getLogger());
+        if (enabled) {
+            evict();
+        }
+        return data;
+    }
+
+    /**
+     * Downloads {@code uri}, revalidating the copy cached in {@code folder} if there is
+     * one. A {@code null} folder bypasses the cache. If the server can't be reached, a
+     * cached copy is returned as is.
+     *
+     * @throws IOException if the download fails, takes longer than {@code timeout},
+     *                     or is larger than {@code maxBytes}
+     */
+    static byte[] fetch(URI uri, File folder, long maxBytes, Duration timeout, Logger logger) throws IOException {
+        File file = folder != null ? new File(folder, key(uri) + EXTENSION) : null;
+        Entry cached = file != null ? readEntry(file, uri, false) : null;
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).timeout(timeout).GET();
+        if (cached != null && !cached.etag().isEmpty()) {
+            request.header("If-None-Match", cached.etag());
+        }
+        if (cached != null && !cached.lastModified().isEmpty()) {
+            request.header("If-Modified-Since", cached.lastModified());
+        }
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        HttpResponse<InputStream> response;
+        try {
+            response = CLIENT.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            Entry stale = cached != null ? readEntry(file, uri, true) : null;
+            if (stale == null) {
+                throw e;
+            }
+            logger.warning("Using cached copy of " + uri + ", the server could not be reached: " + e.getMessage());
+            return stale.body();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while downloading " + uri, e);
+        }
+
+        // The request timeout only covers the headers; a server that stalls mid-body would
+        // block read() forever, so close the stream once the deadline passes.
+        AtomicBoolean timedOut = new AtomicBoolean();
+        InputStream stream = response.body();
+        ScheduledFuture<?> watchdog = TimerPool.schedule(() -> {
+            timedOut.set(true);
+            try {
+                stream.close();
+            } catch (IOException ignored) {
+            }
+        }, deadline - System.nanoTime());
+
+        try (InputStream body = stream) {
+            int status = response.statusCode();
+            if (status == 304 && cached != null) {
+                Entry entry = readEntry(file, uri, true);
+                if (entry != null) {
+                    file.setLastModified(System.currentTimeMillis());
+                    return entry.body();
+                }
+                throw new IOException("Cached copy of " + uri + " disappeared during revalidation");
+            }
+            if (status < 200 || status >= 300) {
+                throw new IOException("HTTP " + status + " from " + uri);
+            }
+
+            long length = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+            if (length > maxBytes) {
+                throw new IOException("Image is larger than " + (maxBytes / 1024 / 1024) + " MB: " + uri);
+            }
+
+            String etag = response.headers().firstValue("ETag").orElse("");
+            String lastModified = response.headers().firstValue("Last-Modified").orElse("");
+            if (file == null || (etag.isEmpty() && lastModified.isEmpty())) {
+                // Nothing to revalidate against later, so there is no point keeping a copy.
+                ByteArrayOutputStream out = new ByteArrayOutputStream(length > 0 ? (int) length : BUFFER_BYTES);
+                copy(body, out, maxBytes, deadline, uri);
+                return out.toByteArray();
+            }
+
+            folder.mkdirs();
+            File temp = File.createTempFile(file.getName(), ".tmp", folder);
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                        new FileOutputStream(temp), BUFFER_BYTES))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(FORMAT_VERSION);
+                    out.writeUTF(uri.toString());
+                    out.writeUTF(etag);
+                    out.writeUTF(lastModified);
+                    copy(body, out, maxBytes, deadline, uri);
+                }
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                temp.delete();
+            }
+
+            Entry entry = readEntry(file, uri, true);
+            if (entry == null) {
+                throw new IOException("Failed to read back downloaded copy of " + uri);
+            }
+            return entry.body();
+        } catch (IOException e) {
+            if (timedOut.get()) {
+                throw new IOException("Timed out downloading " + uri, e);
+            }
+            throw e;
+        } finally {
+            watchdog.cancel(false);
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out, long maxBytes, long deadline, URI uri)
+            throws IOException {
+        byte[] buffer = new byte[BUFFER_BYTES];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            total += read;
+            if (total > maxBytes) {
+                throw new IOException("Image is larger than " + (maxBytes / 1024 / 1024) + " MB: " + uri);
+            }
+            if (System.nanoTime() > deadline) {
+                throw new IOException("Timed out downloading " + uri);
+            }
+            ImageExecutor.checkCancelled();
+            out.write(buffer, 0, read);
+        }
+    }
+
+    /**
+     * Reads a cache entry's validators, and its body if asked to. Returns
+     * {@code null} if there is no usable entry for this URL.
+     */
+    private static Entry readEntry(File file, URI uri, boolean withBody) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file),
+                BUFFER_BYTES))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !in.readUTF().equals(uri.toString())) {
+                return null;
+            }
+            String etag = in.readUTF();
+            String lastModified = in.readUTF();
+            return new Entry(etag, lastModified, withBody ? in.readAllBytes() : null);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String key(URI uri) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(uri.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 20);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static File getCacheFolder() {
+        return new File(new File(MinhutBillboards.getInstance().getDataFolder(), "cache"), "sources");
+    }
+
+    /**
+     * Deletes least recently used sources until the cache fits {@code downloads.cache_max_size_mb}.
+     */
+    public static synchronized void evict() {
+        long maxBytes = MinhutBillboards.getInstance().getConfig().getLong("downloads.cache_max_size_mb", 128)
+                * 1024 * 1024;
+        File[] files = listEntries();
+        long total = Arrays.stream(files).mapToLong(File::length).sum();
+        if (total <= maxBytes) {
+            return;
+        }
+
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (total <= maxBytes) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+            }
+        }
+    }
+
+    /**
+     * Deletes every cached source and returns how many were removed.
+     */
+    public static synchronized int purge() {
+        int removed = 0;
+        for (File file : listEntries()) {
+            if (file.delete()) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public static long getSizeBytes() {
+        return Arrays.stream(listEntries()).mapToLong(File::length).sum();
+    }
+
+    private static File[] listEntries() {
+        File[] files = getCacheFolder().listFiles((dir, name) -> name.endsWith(EXTENSION));
+        return files != null ? files : new File[0];
+    }
+}
@@ -0,0 +1,139 @@
+package me.revqz.minhutBillboards.billboard;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Frames of an animated billboard stored as palette deltas. The first frame is the
+ * owning {@link TileSet}'s tiles; {@code deltas[f][x][y]} turns tile {@code (x, y)}
+ * of frame {@code f - 1} into frame {@code f} (frame 0 follows the last frame), and
+ * is {@code null} where the tile does not change.
+ */
+public final class TileAnimation {
+
+    private final int[] delayTicks;
+    private final TileDelta[][][] deltas;
+
+    TileAnimation(int[] delayTicks, TileDelta[][][] deltas) {
+        this.delayTicks = delayTicks;
+        this.deltas = deltas;
+    }
+
+    public int getFrameCount() {
+        return delayTicks.length;
+    }
+
+    public int getDelayTicks(int frame) {
+        return delayTicks[frame];
+    }
+
+    public TileDelta getDelta(int frame, int x, int y) {
+        return deltas[frame][x][y];
+    }
+
+    /**
+     * Delta-encodes quantized frames, each indexed {@code [x][y]} like a {@link TileSet},
+     * as they are produced. Only the first and the latest frame are held, so memory grows
+     * with what changes between frames rather than with the frame count.
+     */
+    static final class Encoder {
+        private final List<TileDelta[][]> deltas = new ArrayList<>();
+        private final List<Integer> delayTicks = new ArrayList<>();
+        private byte[][][] first;
+        private byte[][][] previous;
+
+        void add(byte[][][] frame, int delay) {
+            if (first == null) {
+                first = frame;
+                deltas.add(null);
+            } else {
+                deltas.add(between(previous, frame));
+            }
+            previous = frame;
+            delayTicks.add(delay);
+        }
+
+        int getFrameCount() {
+            return deltas.size();
+        }
+
+        byte[][][] getFirstFrame() {
+            return first;
+        }
+
+        /**
+         * Closes the loop from the last frame back to the first.
+         */
+        TileAnimation finish() {
+            deltas.set(0, between(previous, first));
+            int[] delays = new int[delayTicks.size()];
+            for (int i = 0; i < delays.length; i++) {
+                delays[i] = delayTicks.get(i);
+            }
+            return new TileAnimation(delays, deltas.toArray(new TileDelta[0][][]));
+        }
+
+        private static TileDelta[][] between(byte[][][] from, byte[][][] to) {
+            int width = to.length;
+            int height = to[0].length;
+            TileDelta[][] frame = new TileDelta[width][height];
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    frame[x][y] = TileDelta.between(from[x][y], to[x][y]);
+                }
+            }
+            return frame;
+        }
+    }
+
+    /**
+     * Changed rectangle of one tile between two frames.
+     */
+    public record TileDelta(int x, int y, int width, int height, byte[] pixels) {
+
+        static TileDelta between(byte[] from, byte[] to) {
+            int size = ImageLoader.MAP_SIZE;
+            int minX = size;
+            int minY = size;
+            int maxX = -1;
+            int maxY = -1;
+
+            for (int py = 0; py < size; py++) {
+                int row = py * size;
+                for (int px = 0; px < size; px++) {
+                    if (from[row + px] != to[row + px]) {
+                        if (px < minX) minX = px;
+                        if (px > maxX) maxX = px;
+                        if (py < minY) minY = py;
+                        maxY = py;
+                    }
+                }
+            }
+
+            if (maxX < 0) {
+                return null;
+            }
+
+            int width = maxX - minX + 1;
+            int height = maxY - minY + 1;
+            byte[] pixels = new byte[width * height];
+            for (int py = 0; py < height; py++) {
+                System.arraycopy(to, (minY + py) * size + minX, pixels, py * width, width);
+            }
+            return new TileDelta(minX, minY, width, height, pixels);
+        }
+
+        void applyTo(byte[] tile) {
+            for (int py = 0; py < height; py++) {
+                System.arraycopy(pixels, py * width, tile, (y + py) * ImageLoader.MAP_SIZE + x, width);
+            }
+        }
+
+        void applyTo(ByteBuffer tile) {
+            for (int py = 0; py < height; py++) {
+                tile.put((y + py) * ImageLoader.MAP_SIZE + x, pixels, py * width, width);
+            }
+        }
+    }
+}
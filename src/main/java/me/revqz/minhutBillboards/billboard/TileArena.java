@@ -0,0 +1,127 @@
+package me.revqz.minhutBillboards.billboard;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Off-heap store for the tiles renderers draw from. Tiles are packed as 16 KB
+ * palette-index slots into 1 MB slabs of direct memory, or of a memory-mapped
+ * scratch file, so attached billboards cost the heap only a slot number each.
+ * Slots are handed out and returned on the main thread.
+ */
+class TileArena {
+
+    private static final int SLAB_TILES = 64;
+    private static final int SLAB_BYTES = SLAB_TILES * ImageLoader.TILE_BYTES;
+
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private int[] freeSlots = new int[SLAB_TILES];
+    private int freeCount;
+    private int usedSlots;
+    private final FileChannel channel;
+
+    private TileArena(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Arena whose slabs are direct (off-heap) buffers.
+     */
+    static TileArena direct() {
+        return new TileArena(null);
+    }
+
+    /**
+     * Arena whose slabs are mapped from a scratch file, deleted when the arena closes.
+     */
+    static TileArena mapped(File file) throws IOException {
+        file.getParentFile().mkdirs();
+        return new TileArena(FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.DELETE_ON_CLOSE));
+    }
+
+    /**
+     * Takes a free slot and fills it with {@code tile}.
+     */
+    int allocate(byte[] tile) {
+        if (freeCount == 0) {
+            grow();
+        }
+        int slot = freeSlots[--freeCount];
+        usedSlots++;
+        view(slot).put(0, tile);
+        return slot;
+    }
+
+    void free(int slot) {
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        usedSlots--;
+    }
+
+    /**
+     * The 16 KB of a slot, as an independent buffer over the slab.
+     */
+    ByteBuffer view(int slot) {
+        return slabs.get(slot / SLAB_TILES).slice((slot % SLAB_TILES) * ImageLoader.TILE_BYTES,
+                ImageLoader.TILE_BYTES);
+    }
+
+    private void grow() {
+        int slab = slabs.size();
+        ByteBuffer buffer;
+        if (channel != null) {
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, (long) slab * SLAB_BYTES, SLAB_BYTES);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to map tile arena slab " + slab, e);
+            }
+        } else {
+            buffer = ByteBuffer.allocateDirect(SLAB_BYTES);
+        }
+        slabs.add(buffer);
+
+        if (freeSlots.length < freeCount + SLAB_TILES) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount + SLAB_TILES);
+        }
+        // Lowest slot on top, so slabs fill from the front.
+        for (int i = SLAB_TILES - 1; i >= 0; i--) {
+            freeSlots[freeCount++] = slab * SLAB_TILES + i;
+        }
+    }
+
+    int getUsedSlots() {
+        return usedSlots;
+    }
+
+    long getReservedBytes() {
+        return (long) slabs.size() * SLAB_BYTES;
+    }
+
+    boolean isMapped() {
+        return channel != null;
+    }
+
+    /**
+     * Drops every slab; views handed out earlier must no longer be used.
+     */
+    void close() {
+        slabs.clear();
+        freeCount = 0;
+        usedSlots = 0;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
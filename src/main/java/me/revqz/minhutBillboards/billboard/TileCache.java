@@ -0,0 +1,337 @@
+package me.revqz.minhutBillboards.billboard;
+
+import me.revqz.minhutBillboards.MinhutBillboards;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Content-addressed on-disk cache of processed tiles under {@code plugins/MinhutBillboards/cache}.
+ * Entries are keyed by the source bytes, wall size, dithering mode, resize filter, colour matching and
+ * palette and pipeline versions, and stored as a small header followed by the raw tiles so they can be memory-mapped.
+ * Animations append their frame delays and per-tile deltas after the first frame.
+ */
+public class TileCache {
+
+    private static final int MAGIC = 0x4D42544C; // "MBTL"
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 20;
+    private static final String EXTENSION = ".tiles";
+
+    /** Keys shown by billboards, with how many show each; these are never evicted or purged. */
+    private static final Map<String, Integer> PINNED = new HashMap<>();
+
+    public static String key(byte[] source, int widthBlocks, int heightBlocks, String ditheringMode,
+            String resizeFilter, String colorMatching) {
+        MessageDigest digest = sha256();
+        digest.update(source);
+        return finishKey(digest, widthBlocks, heightBlocks, ditheringMode, resizeFilter, colorMatching);
+    }
+
+    /**
+     * Key of an already decoded image, hashed from its pixels a row at a time.
+     */
+    public static String key(BufferedImage image, int widthBlocks, int heightBlocks, String ditheringMode,
+            String resizeFilter, String colorMatching) {
+        MessageDigest digest = sha256();
+        int width = image.getWidth();
+        digest.update(("decoded|" + width + "x" + image.getHeight() + "|").getBytes(StandardCharsets.UTF_8));
+        int[] pixels = new int[width];
+        ByteBuffer row = ByteBuffer.allocate(width * 4);
+        for (int y = 0; y < image.getHeight(); y++) {
+            image.getRGB(0, y, width, 1, pixels, 0, width);
+            row.clear();
+            row.asIntBuffer().put(pixels);
+            digest.update(row.array());
+        }
+        return finishKey(digest, widthBlocks, heightBlocks, ditheringMode, resizeFilter, colorMatching);
+    }
+
+    private static String finishKey(MessageDigest digest, int widthBlocks, int heightBlocks, String ditheringMode,
+            String resizeFilter, String colorMatching) {
+        digest.update(("|" + widthBlocks + "x" + heightBlocks + "|" + ditheringMode + "|" + resizeFilter + "|"
+                + ColorDithering.getPaletteVersion(ColorDithering.ColorMatching.fromName(colorMatching)) + "|"
+                + ImageLoader.PIPELINE_VERSION)
+                .getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest(), 0, 20);
+    }
+
+    public static boolean isEnabled() {
+        return MinhutBillboards.getInstance().getConfig().getBoolean("cache.enabled", true);
+    }
+
+    private static File getCacheFolder() {
+        return new File(MinhutBillboards.getInstance().getDataFolder(), "cache");
+    }
+
+    private static File getFile(String key) {
+        return new File(getCacheFolder(), key + EXTENSION);
+    }
+
+    /**
+     * Whether entries for this key are read and written. With the cache disabled,
+     * only the entries billboards are showing are kept, so they survive restarts.
+     */
+    private static boolean isKept(String key) {
+        return key != null && (isEnabled() || isPinned(key));
+    }
+
+    public static boolean contains(String key) {
+        return isKept(key) && getFile(key).isFile();
+    }
+
+    /**
+     * Reads a cached tile set, or returns {@code null} on a miss or an unreadable entry.
+     */
+    public static TileSet load(String key) {
+        if (!isKept(key)) {
+            return null;
+        }
+
+        File file = getFile(key);
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                file.delete();
+                return null;
+            }
+
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            int frameCount = buffer.getInt();
+            long tileBytes = (long) width * height * ImageLoader.TILE_BYTES;
+            if (width <= 0 || height <= 0 || frameCount <= 0 || buffer.remaining() < tileBytes
+                    || (frameCount == 1 && buffer.remaining() != tileBytes)) {
+                file.delete();
+                return null;
+            }
+
+            byte[][][] tiles = new byte[width][height][];
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    byte[] tile = new byte[ImageLoader.TILE_BYTES];
+                    buffer.get(tile);
+                    tiles[x][y] = tile;
+                }
+            }
+
+            TileAnimation animation = frameCount > 1 ? readAnimation(buffer, frameCount, width, height) : null;
+
+            file.setLastModified(System.currentTimeMillis());
+            return new TileSet(key, width, height, tiles, animation);
+        } catch (RuntimeException e) {
+            // Truncated or corrupt tiles or animation: drop the entry like a bad header, so
+            // it isn't mapped and parsed again on every lookup.
+            file.delete();
+            MinhutBillboards.getInstance().getLogger().warning("Deleted corrupt cached tiles " + key + ": " + e);
+            return null;
+        } catch (IOException e) {
+            MinhutBillboards.getInstance().getLogger().warning("Failed to read cached tiles " + key + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public static void store(TileSet tiles) {
+        if (!isKept(tiles.key())) {
+            return;
+        }
+
+        File folder = getCacheFolder();
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+
+        File file = getFile(tiles.key());
+        try {
+            File temp = File.createTempFile(tiles.key(), ".tmp", folder);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(tiles.width());
+                out.writeInt(tiles.height());
+                out.writeInt(tiles.isAnimated() ? tiles.animation().getFrameCount() : 1);
+                for (int x = 0; x < tiles.width(); x++) {
+                    for (int y = 0; y < tiles.height(); y++) {
+                        out.write(tiles.tile(x, y));
+                    }
+                }
+                if (tiles.isAnimated()) {
+                    writeAnimation(out, tiles.animation(), tiles.width(), tiles.height());
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            MinhutBillboards.getInstance().getLogger().warning("Failed to cache tiles " + tiles.key() + ": " + e.getMessage());
+            return;
+        }
+
+        evict();
+    }
+
+    private static void writeAnimation(DataOutputStream out, TileAnimation animation, int width, int height)
+            throws IOException {
+        int frameCount = animation.getFrameCount();
+        for (int f = 0; f < frameCount; f++) {
+            out.writeInt(animation.getDelayTicks(f));
+        }
+        for (int f = 0; f < frameCount; f++) {
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    TileAnimation.TileDelta delta = animation.getDelta(f, x, y);
+                    if (delta == null) {
+                        out.writeByte(0);
+                        continue;
+                    }
+                    out.writeByte(1);
+                    out.writeByte(delta.x());
+                    out.writeByte(delta.y());
+                    out.writeByte(delta.width() - 1);
+                    out.writeByte(delta.height() - 1);
+                    out.write(delta.pixels());
+                }
+            }
+        }
+    }
+
+    private static TileAnimation readAnimation(ByteBuffer buffer, int frameCount, int width, int height) {
+        int[] delays = new int[frameCount];
+        for (int f = 0; f < frameCount; f++) {
+            delays[f] = buffer.getInt();
+        }
+
+        TileAnimation.TileDelta[][][] deltas = new TileAnimation.TileDelta[frameCount][width][height];
+        for (int f = 0; f < frameCount; f++) {
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    if (buffer.get() == 0) {
+                        continue;
+                    }
+                    int dx = buffer.get() & 0xFF;
+                    int dy = buffer.get() & 0xFF;
+                    int dw = (buffer.get() & 0xFF) + 1;
+                    int dh = (buffer.get() & 0xFF) + 1;
+                    byte[] pixels = new byte[dw * dh];
+                    buffer.get(pixels);
+                    deltas[f][x][y] = new TileAnimation.TileDelta(dx, dy, dw, dh, pixels);
+                }
+            }
+        }
+        return new TileAnimation(delays, deltas);
+    }
+
+    /**
+     * Keeps an entry from being evicted or purged while a billboard shows it. Call
+     * once per billboard showing the key, and {@link #unpin} once it stops.
+     */
+    public static synchronized void pin(String key) {
+        if (key != null) {
+            PINNED.merge(key, 1, Integer::sum);
+        }
+    }
+
+    public static synchronized void unpin(String key) {
+        if (key != null) {
+            PINNED.computeIfPresent(key, (pinned, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * Unpins a key a billboard stopped showing. With the cache disabled, the entry was
+     * only kept for billboards, so it is deleted once none shows it.
+     */
+    public static synchronized void release(String key) {
+        unpin(key);
+        if (key != null && !isEnabled() && !PINNED.containsKey(key)) {
+            getFile(key).delete();
+        }
+    }
+
+    public static synchronized boolean isPinned(String key) {
+        return PINNED.containsKey(key);
+    }
+
+    /**
+     * Deletes least recently used entries until the cache fits {@code cache.max_size_mb}.
+     * Entries billboards are showing are kept and count towards the limit.
+     */
+    public static synchronized void evict() {
+        long maxBytes = MinhutBillboards.getInstance().getConfig().getLong("cache.max_size_mb", 256) * 1024 * 1024;
+        File[] files = listEntries();
+        long total = Arrays.stream(files).mapToLong(File::length).sum();
+        if (total <= maxBytes) {
+            return;
+        }
+
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (total <= maxBytes) {
+                break;
+            }
+            if (PINNED.containsKey(getKey(file))) {
+                continue;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+            }
+        }
+    }
+
+    /**
+     * Deletes every cached entry no billboard is showing and returns how many were removed.
+     */
+    public static synchronized int purge() {
+        int removed = 0;
+        for (File file : listEntries()) {
+            if (!PINNED.containsKey(getKey(file)) && file.delete()) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private static String getKey(File file) {
+        String name = file.getName();
+        return name.substring(0, name.length() - EXTENSION.length());
+    }
+
+    public static long getSizeBytes() {
+        return Arrays.stream(listEntries()).mapToLong(File::length).sum();
+    }
+
+    private static File[] listEntries() {
+        File[] files = getCacheFolder().listFiles((dir, name) -> name.endsWith(EXTENSION));
+        return files != null ? files : new File[0];
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package me.revqz.minhutBillboards.billboard;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.map.MapRenderer;
+import org.bukkit.map.MapView;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Content-addressed map registry: every distinct tile is shown through one shared
+ * {@link MapView} and renderer, however many billboards display it. Entries are
+ * reference counted by the tiles using them; map ids whose last user goes away are
+ * kept on a free list and reused, since the server never gives map ids back.
+ * Animated tiles change independently, so they get private, unshared entries.
+ */
+class TileRegistry {
+
+    /** Hash value reserved for private (unshared) entries. */
+    static final long PRIVATE = 0;
+
+    private final Map<Long, Entry> byHash = new HashMap<>();
+    private final Map<Integer, Entry> byMapId = new HashMap<>();
+    private final Deque<Integer> freeMapIds = new ArrayDeque<>();
+    private final MapSendScheduler scheduler;
+    private final TileArena arena;
+
+    private static final class Entry {
+        final int mapId;
+        final long hash;
+        int references;
+        int attached;
+        BillboardMapRenderer renderer;
+
+        Entry(int mapId, long hash) {
+            this.mapId = mapId;
+            this.hash = hash;
+        }
+    }
+
+    TileRegistry(MapSendScheduler scheduler, TileArena arena) {
+        this.scheduler = scheduler;
+        this.arena = arena;
+    }
+
+    /**
+     * 64 bits of the tile's SHA-256, never {@link #PRIVATE}.
+     */
+    static long hash(byte[] tile) {
+        try {
+            long hash = ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(tile)).getLong();
+            return hash == PRIVATE ? 1 : hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the map showing this content, creating (or recycling) one if needed.
+     */
+    int acquire(long hash, World world) {
+        if (hash != PRIVATE) {
+            Entry existing = byHash.get(hash);
+            if (existing != null) {
+                existing.references++;
+                return existing.mapId;
+            }
+        }
+
+        Entry entry = new Entry(nextMapId(world), hash);
+        entry.references = 1;
+        byMapId.put(entry.mapId, entry);
+        if (hash != PRIVATE) {
+            byHash.put(hash, entry);
+        }
+        return entry.mapId;
+    }
+
+    /**
+     * Re-registers a reference loaded from the billboard snapshot.
+     */
+    void restore(int mapId, long hash) {
+        Entry entry = byMapId.get(mapId);
+        if (entry == null) {
+            entry = new Entry(mapId, hash);
+            byMapId.put(mapId, entry);
+            if (hash != PRIVATE) {
+                byHash.putIfAbsent(hash, entry);
+            }
+            freeMapIds.remove(mapId);
+        }
+        entry.references++;
+    }
+
+    void release(int mapId) {
+        Entry entry = byMapId.get(mapId);
+        if (entry == null || --entry.references > 0) {
+            return;
+        }
+
+        byMapId.remove(mapId);
+        if (entry.hash != PRIVATE) {
+            byHash.remove(entry.hash, entry);
+        }
+        removeRenderer(entry);
+        freeMapIds.add(mapId);
+    }
+
+    /**
+     * Marks one user of a map as visible and returns the renderer drawing it. The
+     * renderer is only created for the first visible user.
+     */
+    BillboardMapRenderer attach(int mapId, byte[] tile) {
+        Entry entry = byMapId.get(mapId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.renderer != null) {
+            entry.attached++;
+            return entry.renderer;
+        }
+
+        MapView mapView = Bukkit.getMap(mapId);
+        if (mapView == null) {
+            return null;
+        }
+        for (MapRenderer renderer : mapView.getRenderers()) {
+            mapView.removeRenderer(renderer);
+        }
+        entry.renderer = new BillboardMapRenderer(arena, tile, scheduler);
+        entry.attached = 1;
+        mapView.addRenderer(entry.renderer);
+        return entry.renderer;
+    }
+
+    /**
+     * Marks one user of a map as no longer visible, dropping the renderer and its
+     * tile data once nobody is left.
+     */
+    void detach(int mapId) {
+        Entry entry = byMapId.get(mapId);
+        if (entry == null || entry.renderer == null || --entry.attached > 0) {
+            return;
+        }
+        removeRenderer(entry);
+    }
+
+    /**
+     * Drops what every renderer remembers drawing for a player who left.
+     */
+    void forget(UUID playerId) {
+        for (Entry entry : byMapId.values()) {
+            if (entry.renderer != null) {
+                entry.renderer.forget(playerId);
+            }
+        }
+    }
+
+    TileArena getArena() {
+        return arena;
+    }
+
+    int getEntryCount() {
+        return byMapId.size();
+    }
+
+    Collection<Integer> getFreeMapIds() {
+        return List.copyOf(freeMapIds);
+    }
+
+    void restoreFreeMapIds(Collection<Integer> mapIds) {
+        for (int mapId : mapIds) {
+            if (!byMapId.containsKey(mapId) && !freeMapIds.contains(mapId)) {
+                freeMapIds.add(mapId);
+            }
+        }
+    }
+
+    void clear() {
+        for (Entry entry : byMapId.values()) {
+            if (entry.renderer != null) {
+                entry.renderer.release();
+            }
+        }
+        byHash.clear();
+        byMapId.clear();
+        freeMapIds.clear();
+    }
+
+    private int nextMapId(World world) {
+        while (!freeMapIds.isEmpty()) {
+            int mapId = freeMapIds.poll();
+            if (Bukkit.getMap(mapId) != null) {
+                return mapId;
+            }
+        }
+        return Bukkit.createMap(world).getId();
+    }
+
+    private void removeRenderer(Entry entry) {
+        if (entry.renderer == null) {
+            return;
+        }
+        MapView mapView = Bukkit.getMap(entry.mapId);
+        if (mapView != null) {
+            mapView.removeRenderer(entry.renderer);
+        }
+        entry.renderer.release();
+        entry.renderer = null;
+        entry.attached = 0;
+    }
+}
@@ -0,0 +1,34 @@
+package me.revqz.minhutBillboards.billboard;
+
+/**
+ * Processed billboard image: {@code width x height} map tiles of 128x128
+ * palette indices, indexed {@code [x][y]} with {@code y = 0} at the bottom.
+ *
+ * @param key       tile cache key the tiles were produced under, or {@code null} for
+ *                  frames of a {@link LiveFeed}, which are not cached
+ * @param tiles     the tiles, or the first frame of an animation; {@code null} once
+ *                  handed to the renderers, see {@link #withoutPixels()}
+ * @param animation remaining frames as deltas, or {@code null} for a still image
+ */
+public record TileSet(String key, int width, int height, byte[][][] tiles, TileAnimation animation) {
+
+    public TileSet(String key, int width, int height, byte[][][] tiles) {
+        this(key, width, height, tiles, null);
+    }
+
+    public byte[] tile(int x, int y) {
+        return tiles != null ? tiles[x][y] : null;
+    }
+
+    /**
+     * The same tile set without its pixels, for once they have been copied to the
+     * renderers' arena and only the key and animation are still needed.
+     */
+    public TileSet withoutPixels() {
+        return tiles == null ? this : new TileSet(key, width, height, null, animation);
+    }
+
+    public boolean isAnimated() {
+        return animation != null && animation.getFrameCount() > 1;
+    }
+}
@@ -0,0 +1,38 @@
+package me.revqz.minhutBillboards.billboard;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The plugin's own timer thread for short delayed work off the main thread, such as
+ * download deadlines and feed pacing, so none of it lands on the JVM-wide common pool.
+ * Tasks must be quick; anything heavier hands off to the {@link ImageExecutor}.
+ */
+public class TimerPool {
+
+    private static ScheduledThreadPoolExecutor timer;
+
+    private static synchronized ScheduledThreadPoolExecutor get() {
+        if (timer == null) {
+            timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "MinhutBillboards-Timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.setRemoveOnCancelPolicy(true);
+        }
+        return timer;
+    }
+
+    static ScheduledFuture<?> schedule(Runnable task, long delayNanos) {
+        return get().schedule(task, Math.max(0, delayNanos), TimeUnit.NANOSECONDS);
+    }
+
+    public static synchronized void shutdown() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package me.revqz.minhutBillboards.billboard;
+
+import me.revqz.minhutBillboards.MinhutBillboards;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.entity.ItemFrame;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Builds or tears down a billboard wall a few blocks and frames per tick, so large
+ * walls don't stall the server. Work is grouped by chunk and runs until the tick's
+ * {@code placement.ms_per_tick} budget is spent; blocks are set without physics.
+ */
+public class WallJob {
+
+    public enum Kind {
+        SPAWN,
+        REMOVE
+    }
+
+    /**
+     * Callbacks on the main thread as the job runs.
+     */
+    public interface Listener {
+        default void onProgress(int done, int total) {
+        }
+
+        default void onFinish() {
+        }
+
+        default void onCancel() {
+        }
+    }
+
+    private record Step(PipelineMetrics.Stage stage, long chunkKey, Runnable action) {
+    }
+
+    private final Kind kind;
+    private final List<Step> steps = new ArrayList<>();
+    private final long[] stageNanos = new long[PipelineMetrics.Stage.values().length];
+    private int next;
+    private BukkitTask task;
+    private boolean done;
+    private Listener listener = new Listener() {
+    };
+    private Runnable onDone = () -> {
+    };
+
+    /** Spawned frames, indexed {@code [x][y]} with {@code y = 0} at the bottom. */
+    private ItemFrame[][] frames;
+    private final List<Block> placedBlocks = new ArrayList<>();
+
+    private WallJob(Kind kind) {
+        this.kind = kind;
+    }
+
+    /**
+     * Fills a wall of {@code material} rising from {@code origin} along {@code widthDirection},
+     * then hangs an invisible, fixed frame on each block's {@code facing} side.
+     */
+    public static WallJob spawn(World world, Location origin, BlockFace facing, BlockFace widthDirection,
+            int width, int height, Material material) {
+        WallJob job = new WallJob(Kind.SPAWN);
+        job.frames = new ItemFrame[width][height];
+
+        for (int y = 0; y < height; y++) {
+            for (int w = 0; w < width; w++) {
+                Block block = world.getBlockAt(origin.getBlockX() + widthDirection.getModX() * w,
+                        origin.getBlockY() + y, origin.getBlockZ() + widthDirection.getModZ() * w);
+                job.add(PipelineMetrics.Stage.BLOCKS, block, () -> {
+                    block.setType(material, false);
+                    job.placedBlocks.add(block);
+                });
+            }
+        }
+
+        for (int y = 0; y < height; y++) {
+            for (int w = 0; w < width; w++) {
+                Block front = world.getBlockAt(origin.getBlockX() + widthDirection.getModX() * w + facing.getModX(),
+                        origin.getBlockY() + y, origin.getBlockZ() + widthDirection.getModZ() * w + facing.getModZ());
+                int x = w;
+                int row = y;
+                job.add(PipelineMetrics.Stage.FRAMES, front, () -> {
+                    try {
+                        job.frames[x][row] = world.spawn(front.getLocation(), ItemFrame.class, itemFrame -> {
+                            itemFrame.setFacingDirection(facing, true);
+                            itemFrame.setVisible(false);
+                            itemFrame.setFixed(true);
+                        });
+                    } catch (Exception e) {
+                    }
+                });
+            }
+        }
+
+        job.sort();
+        return job;
+    }
+
+    /**
+     * Direction a wall facing {@code facing} runs in from its origin.
+     */
+    public static BlockFace getWidthDirection(BlockFace facing) {
+        return switch (facing) {
+            case NORTH, SOUTH -> BlockFace.EAST;
+            case EAST, WEST -> BlockFace.SOUTH;
+            default -> BlockFace.EAST;
+        };
+    }
+
+    /**
+     * Removes the given frames, then clears the wall blocks to air.
+     */
+    public static WallJob remove(List<ItemFrame> frames, List<Block> blocks) {
+        WallJob job = new WallJob(Kind.REMOVE);
+        for (ItemFrame frame : frames) {
+            Location location = frame.getLocation();
+            job.add(PipelineMetrics.Stage.FRAMES, location.getBlockX(), location.getBlockZ(), frame::remove);
+        }
+        for (Block block : blocks) {
+            job.add(PipelineMetrics.Stage.BLOCKS, block, () -> block.setType(Material.AIR, false));
+        }
+        job.sort();
+        return job;
+    }
+
+    private void add(PipelineMetrics.Stage stage, Block block, Runnable action) {
+        add(stage, block.getX(), block.getZ(), action);
+    }
+
+    private void add(PipelineMetrics.Stage stage, int x, int z, Runnable action) {
+        steps.add(new Step(stage, BillboardData.chunkKey(x >> 4, z >> 4), action));
+    }
+
+    /**
+     * Keeps each phase in order (frames need the blocks behind them, and come down
+     * first) while grouping the steps of a phase by chunk.
+     */
+    private void sort() {
+        List<PipelineMetrics.Stage> phases = new ArrayList<>();
+        for (Step step : steps) {
+            if (!phases.contains(step.stage())) {
+                phases.add(step.stage());
+            }
+        }
+        steps.sort(Comparator.<Step>comparingInt(step -> phases.indexOf(step.stage()))
+                .thenComparingLong(Step::chunkKey));
+    }
+
+    public WallJob listener(Listener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Called once the job finishes or is cancelled, for the owner's bookkeeping.
+     */
+    void onDone(Runnable onDone) {
+        this.onDone = onDone;
+    }
+
+    void start() {
+        int budgetMs = MinhutBillboards.getInstance().getConfig().getInt("placement.ms_per_tick", 5);
+        if (budgetMs <= 0) {
+            finishNow();
+            return;
+        }
+        long budgetNanos = budgetMs * 1_000_000L;
+        task = Bukkit.getScheduler().runTaskTimer(MinhutBillboards.getInstance(), () -> tick(budgetNanos), 1L, 1L);
+    }
+
+    private void tick(long budgetNanos) {
+        long start = PipelineMetrics.start();
+        long deadline = start + budgetNanos;
+        // Always make some progress, however small the budget.
+        do {
+            runStep();
+        } while (next < steps.size() && System.nanoTime() < deadline);
+        PipelineMetrics.record(PipelineMetrics.Stage.WALL_JOB_TICK, start);
+
+        listener.onProgress(next, steps.size());
+        if (next >= steps.size()) {
+            complete();
+        }
+    }
+
+    private void runStep() {
+        Step step = steps.get(next++);
+        long start = System.nanoTime();
+        step.action().run();
+        stageNanos[step.stage().ordinal()] += System.nanoTime() - start;
+    }
+
+    /**
+     * Runs everything that is left right away, e.g. when the plugin is disabled.
+     */
+    public void finishNow() {
+        if (done) {
+            return;
+        }
+        while (next < steps.size()) {
+            runStep();
+        }
+        complete();
+    }
+
+    private void complete() {
+        done = true;
+        if (task != null) {
+            task.cancel();
+        }
+        for (PipelineMetrics.Stage stage : PipelineMetrics.Stage.values()) {
+            if (stageNanos[stage.ordinal()] > 0) {
+                PipelineMetrics.recordDuration(stage, stageNanos[stage.ordinal()]);
+            }
+        }
+        onDone.run();
+        listener.onFinish();
+    }
+
+    /**
+     * Stops the job where it is. A spawn hands back a job that removes what it had
+     * already placed (not yet started); a removal just stops.
+     */
+    public WallJob cancel() {
+        if (done) {
+            return null;
+        }
+        done = true;
+        if (task != null) {
+            task.cancel();
+        }
+        onDone.run();
+        listener.onCancel();
+
+        if (kind != Kind.SPAWN) {
+            return null;
+        }
+        return remove(getSpawnedFrames(), placedBlocks);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Frames spawned so far, indexed {@code [x][y]}; {@code null} where none was placed.
+     */
+    public ItemFrame[][] getFrames() {
+        return frames;
+    }
+
+    public int getFramesPlaced() {
+        return getSpawnedFrames().size();
+    }
+
+    private List<ItemFrame> getSpawnedFrames() {
+        List<ItemFrame> spawned = new ArrayList<>();
+        if (frames != null) {
+            for (ItemFrame[] column : frames) {
+                for (ItemFrame frame : column) {
+                    if (frame != null) {
+                        spawned.add(frame);
+                    }
+                }
+            }
+        }
+        return spawned;
+    }
+}
@@ -2,11 +2,13 @@ package me.revqz.minhutBillboards.commands;
 
 import me.revqz.minhutBillboards.MinhutBillboards;
 import me.revqz.minhutBillboards.billboard.BillboardManager;
-import me.revqz.minhutBillboards.billboard.BillboardMapRenderer;
-import me.revqz.minhutBillboards.billboard.ImageLoader;
+import me.revqz.minhutBillboards.billboard.LiveFeed;
+import me.revqz.minhutBillboards.billboard.PipelineMetrics;
+import me.revqz.minhutBillboards.billboard.SourceCache;
+import me.revqz.minhutBillboards.billboard.TileCache;
+import me.revqz.minhutBillboards.billboard.WallJob;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
@@ -18,18 +20,21 @@ import org.bukkit.command.TabCompleter;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.ItemFrame;
 import org.bukkit.entity.Player;
-import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.MapMeta;
-import org.bukkit.map.MapRenderer;
-import org.bukkit.map.MapView;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
 
 public class BillboardCommand implements CommandExecutor, TabCompleter {
 
     private final Map<UUID, String> lastSpawnedBillboard = new HashMap<>();
+    private final Map<UUID, WallJob> spawnJobs = new HashMap<>();
 
     @Override
     public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label,
@@ -62,9 +67,26 @@ public class BillboardCommand implements CommandExecutor, TabCompleter {
                 }
                 removeBillboard(player, args[1]);
             }
+            case "update" -> {
+                if (args.length < 3) {
+                    player.sendMessage(Component.text("Usage: /billboard update <name> <image>", NamedTextColor.RED));
+                    return true;
+                }
+                updateBillboard(player, args[1], args[2]);
+            }
+            case "feed" -> {
+                if (args.length < 3) {
+                    player.sendMessage(Component.text("Usage: /billboard feed <name> <source|stop>",
+                            NamedTextColor.RED));
+                    return true;
+                }
+                setFeed(player, args[1], args[2]);
+            }
             case "undo" -> undoLastBillboard(player);
             case "list" -> listAvailableBillboards(player);
             case "reload" -> reloadConfig(player);
+            case "cache" -> handleCache(player, args);
+            case "stats" -> handleStats(player, args);
             default -> sendUsage(player);
         }
 
@@ -75,15 +97,23 @@ public class BillboardCommand implements CommandExecutor, TabCompleter {
     public @Nullable List<String> onTabComplete(@NotNull CommandSender sender, @NotNull Command command,
             @NotNull String label, @NotNull String[] args) {
         if (args.length == 1) {
-            return List.of("spawn", "remove", "undo", "list", "reload");
+            return List.of("spawn", "remove", "update", "feed", "undo", "list", "reload", "cache", "stats");
         }
         if (args.length == 2) {
             if (args[0].equalsIgnoreCase("spawn")) {
                 return getConfiguredBillboardNames();
-            } else if (args[0].equalsIgnoreCase("remove")) {
+            } else if (args[0].equalsIgnoreCase("remove") || args[0].equalsIgnoreCase("update")
+                    || args[0].equalsIgnoreCase("feed")) {
                 return new ArrayList<>(BillboardManager.getInstance().getBillboardNames());
+            } else if (args[0].equalsIgnoreCase("cache")) {
+                return List.of("purge");
+            } else if (args[0].equalsIgnoreCase("stats")) {
+                return List.of("dump", "reset");
             }
         }
+        if (args.length == 3 && args[0].equalsIgnoreCase("feed")) {
+            return List.of("stop");
+        }
         return List.of();
     }
 
@@ -107,6 +137,15 @@ public class BillboardCommand implements CommandExecutor, TabCompleter {
     }
 
     private void spawnBillboard(Player player, String billboardName) {
+        // Only the latest spawn can be undone, and finishing an earlier one at once would
+        // place its whole wall in a single tick, so build one at a time.
+        if (spawnJobs.containsKey(player.getUniqueId())) {
+            player.sendMessage(Component.text("✗ ", NamedTextColor.RED)
+                    .append(Component.text("Your last billboard is still being built! Wait for it to finish, "
+                            + "or use /billboard undo to cancel it.", NamedTextColor.GRAY)));
+            return;
+        }
+
         ConfigurationSection config = MinhutBillboards.getInstance().getConfig()
                 .getConfigurationSection("billboards." + billboardName);
 
@@ -120,6 +159,7 @@ public class BillboardCommand implements CommandExecutor, TabCompleter {
         int wallHeight = config.getInt("height", 5);
         String materialName = config.getString("material", "BLACK_CONCRETE");
         String imageSource = config.getString("image", "");
+        String feedSource = config.getString("feed", "");
 
         Material material;
         try {
@@ -142,7 +182,7 @@ public class BillboardCommand implements CommandExecutor, TabCompleter {
 
         Location startLoc = targetBlock.getLocation().clone();
 
-        BlockFace widthDirection = getWidthDirection(facing);
+        BlockFace widthDirection = WallJob.getWidthDirection(facing);
 
         int halfWidth = wallWidth / 2;
         startLoc.add(
@@ -150,107 +190,77 @@ public class BillboardCommand implements CommandExecutor, TabCompleter {
                 0,
                 widthDirection.getModZ() * -halfWidth);
 
-        List<Location> blockLocations = new ArrayList<>();
-
-        for (int y = 0; y < wallHeight; y++) {
-            for (int w = 0; w < wallWidth; w++) {
-                Location blockLoc = startLoc.clone().add(
-                        widthDirection.getModX() * w,
-                        y,
-                        widthDirection.getModZ() * w);
+        String uniqueName = billboardName + "_" + System.currentTimeMillis();
+        WallJob job = WallJob.spawn(player.getWorld(), startLoc, frameFacing, widthDirection, wallWidth, wallHeight,
+                material);
+        job.listener(new WallJob.Listener() {
+            @Override
+            public void onProgress(int done, int total) {
+                sendProgress(player, "Building billboard", done, total);
+            }
 
-                Block block = blockLoc.getBlock();
-                block.setType(material);
-                blockLocations.add(blockLoc.clone());
+            @Override
+            public void onCancel() {
+                spawnJobs.remove(player.getUniqueId(), job);
             }
-        }
 
-        MapView[][] mapViews = new MapView[wallWidth][wallHeight];
-        List<ItemFrame> spawnedFrames = new ArrayList<>();
-
-        int framesPlaced = 0;
-        for (int y = 0; y < wallHeight; y++) {
-            for (int w = 0; w < wallWidth; w++) {
-                Location blockLoc = startLoc.clone().add(
-                        widthDirection.getModX() * w,
-                        y,
-                        widthDirection.getModZ() * w);
-
-                Block frontBlock = blockLoc.getBlock().getRelative(frameFacing);
-                Location frameLoc = frontBlock.getLocation();
-
-                final int mapX = w;
-                final int mapY = y;
-
-                try {
-                    ItemFrame frame = player.getWorld().spawn(frameLoc, ItemFrame.class, itemFrame -> {
-                        itemFrame.setFacingDirection(frameFacing, true);
-                        itemFrame.setVisible(false);
-                        itemFrame.setFixed(true);
-
-                        MapView mapView = Bukkit.createMap(player.getWorld());
-                        mapViews[mapX][mapY] = mapView;
-
-                        ItemStack mapItem = new ItemStack(Material.FILLED_MAP);
-                        MapMeta mapMeta = (MapMeta) mapItem.getItemMeta();
-                        mapMeta.setMapView(mapView);
-                        mapItem.setItemMeta(mapMeta);
-
-                        itemFrame.setItem(mapItem);
-                    });
-                    spawnedFrames.add(frame);
-                    framesPlaced++;
-                } catch (Exception e) {
-                }
+            @Override
+            public void onFinish() {
+                spawnJobs.remove(player.getUniqueId(), job);
+                finishSpawn(player, billboardName, uniqueName, job, startLoc, frameFacing, widthDirection,
+                        wallWidth, wallHeight, imageSource, feedSource);
             }
-        }
+        });
 
-        String uniqueName = billboardName + "_" + System.currentTimeMillis();
-        BillboardManager.getInstance().registerBillboard(uniqueName, spawnedFrames, blockLocations);
-        lastSpawnedBillboard.put(player.getUniqueId(), uniqueName);
+        spawnJobs.put(player.getUniqueId(), job);
+        BillboardManager.getInstance().startWallJob(job);
+    }
 
-        final int finalFramesPlaced = framesPlaced;
+    private void finishSpawn(Player player, String billboardName, String uniqueName, WallJob job, Location startLoc,
+            BlockFace frameFacing, BlockFace widthDirection, int wallWidth, int wallHeight, String imageSource,
+            String feedSource) {
+        BillboardManager.getInstance().registerBillboard(uniqueName, startLoc.getWorld(), startLoc, frameFacing,
+                widthDirection, wallWidth, wallHeight, job.getFrames());
+        lastSpawnedBillboard.put(player.getUniqueId(), uniqueName);
 
-        if (imageSource != null && !imageSource.isEmpty()) {
+        if (feedSource != null && !feedSource.isEmpty()) {
+            BillboardManager.getInstance().startFeed(uniqueName, feedSource);
+        } else if (imageSource != null && !imageSource.isEmpty()) {
             player.sendMessage(Component.text("⏳ ", NamedTextColor.YELLOW)
                     .append(Component.text("Loading image...", NamedTextColor.GRAY)));
 
-            final int fw = wallWidth;
-            final int fh = wallHeight;
-
-            ImageLoader.loadAndProcessImage(imageSource, wallWidth, wallHeight).thenAccept(tiles -> {
-                if (tiles == null) {
-                    Bukkit.getScheduler().runTask(MinhutBillboards.getInstance(), () -> {
-                        player.sendMessage(Component.text("✗ ", NamedTextColor.RED)
-                                .append(Component.text("Failed to load image!", NamedTextColor.GRAY)));
-                    });
+            BillboardManager.getInstance().updateBillboard(uniqueName, imageSource).whenComplete((changed, error) -> {
+                if (error != null || changed < 0) {
+                    sendImageFailure(player, error);
                     return;
                 }
-
-                Bukkit.getScheduler().runTask(MinhutBillboards.getInstance(), () -> {
-                    for (int x = 0; x < fw; x++) {
-                        for (int y = 0; y < fh; y++) {
-                            MapView mapView = mapViews[x][y];
-                            if (mapView != null && tiles[x][y] != null) {
-                                for (MapRenderer renderer : mapView.getRenderers()) {
-                                    mapView.removeRenderer(renderer);
-                                }
-                                mapView.addRenderer(new BillboardMapRenderer(tiles[x][y]));
-                            }
-                        }
-                    }
-                    player.sendMessage(Component.text("✓ ", NamedTextColor.GREEN)
-                            .append(Component.text("Image loaded!", NamedTextColor.GRAY)));
-                });
+                player.sendMessage(Component.text("✓ ", NamedTextColor.GREEN)
+                        .append(Component.text("Image loaded!", NamedTextColor.GRAY)));
             });
         }
 
         player.sendMessage(Component.text("✓ ", NamedTextColor.GREEN)
                 .append(Component.text("Billboard '" + billboardName + "' spawned! ", NamedTextColor.GRAY))
-                .append(Component.text("(" + wallWidth + "x" + wallHeight + ", " + finalFramesPlaced + " maps)",
+                .append(Component.text("(" + wallWidth + "x" + wallHeight + ", " + job.getFramesPlaced() + " maps)",
                         NamedTextColor.DARK_GRAY)));
     }
 
+    private void sendProgress(Player player, String action, int done, int total) {
+        if (player.isOnline()) {
+            player.sendActionBar(Component.text(action + "... " + done * 100 / Math.max(1, total) + "%",
+                    NamedTextColor.YELLOW));
+        }
+    }
+
+    private WallJob.Listener removalProgress(Player player) {
+        return new WallJob.Listener() {
+            @Override
+            public void onProgress(int done, int total) {
+                sendProgress(player, "Removing billboard", done, total);
+            }
+        };
+    }
+
     private BlockFace getDirectionToPlayer(Location target, Location player) {
         double dx = player.getX() - target.getX();
         double dz = player.getZ() - target.getZ();
@@ -262,15 +272,18 @@ public class BillboardCommand implements CommandExecutor, TabCompleter {
         }
     }
 
-    private BlockFace getWidthDirection(BlockFace facing) {
-        return switch (facing) {
-            case NORTH, SOUTH -> BlockFace.EAST;
-            case EAST, WEST -> BlockFace.SOUTH;
-            default -> BlockFace.EAST;
-        };
-    }
-
     private void undoLastBillboard(Player player) {
+        WallJob spawning = spawnJobs.remove(player.getUniqueId());
+        if (spawning != null) {
+            WallJob rollback = spawning.cancel();
+            if (rollback != null) {
+                BillboardManager.getInstance().startWallJob(rollback.listener(removalProgress(player)));
+            }
+            player.sendMessage(Component.text("✓ ", NamedTextColor.GREEN)
+                    .append(Component.text("Billboard spawn cancelled!", NamedTextColor.GRAY)));
+            return;
+        }
+
         String lastBillboard = lastSpawnedBillboard.remove(player.getUniqueId());
 
         if (lastBillboard == null) {
@@ -283,32 +296,93 @@ public class BillboardCommand implements CommandExecutor, TabCompleter {
             return;
         }
 
-        BillboardManager.getInstance().removeBillboard(lastBillboard);
+        BillboardManager.getInstance().removeBillboard(lastBillboard).listener(removalProgress(player));
         player.sendMessage(Component.text("✓ ", NamedTextColor.GREEN)
                 .append(Component.text("Billboard undone!", NamedTextColor.GRAY)));
     }
 
-    private void removeBillboard(Player player, String name) {
-        Set<String> billboards = BillboardManager.getInstance().getBillboardNames();
-
-        String toRemove = null;
-        for (String billboard : billboards) {
+    private String findSpawnedBillboard(String name) {
+        for (String billboard : BillboardManager.getInstance().getBillboardNames()) {
             if (billboard.startsWith(name.toLowerCase())) {
-                toRemove = billboard;
-                break;
+                return billboard;
             }
         }
+        return null;
+    }
+
+    private void removeBillboard(Player player, String name) {
+        String toRemove = findSpawnedBillboard(name);
 
         if (toRemove == null) {
             player.sendMessage(Component.text("No billboard found with name: " + name, NamedTextColor.RED));
             return;
         }
 
-        BillboardManager.getInstance().removeBillboard(toRemove);
+        BillboardManager.getInstance().removeBillboard(toRemove).listener(removalProgress(player));
         player.sendMessage(Component.text("✓ ", NamedTextColor.GREEN)
                 .append(Component.text("Billboard removed!", NamedTextColor.GRAY)));
     }
 
+    private void updateBillboard(Player player, String name, String source) {
+        String toUpdate = findSpawnedBillboard(name);
+
+        if (toUpdate == null) {
+            player.sendMessage(Component.text("No billboard found with name: " + name, NamedTextColor.RED));
+            return;
+        }
+
+        player.sendMessage(Component.text("⏳ ", NamedTextColor.YELLOW)
+                .append(Component.text("Loading image...", NamedTextColor.GRAY)));
+
+        BillboardManager.getInstance().updateBillboard(toUpdate, source).whenComplete((changed, error) -> {
+            if (error != null || changed < 0) {
+                sendImageFailure(player, error);
+                return;
+            }
+            player.sendMessage(Component.text("✓ ", NamedTextColor.GREEN)
+                    .append(Component.text("Billboard updated! ", NamedTextColor.GRAY))
+                    .append(Component.text("(" + changed + " maps changed)", NamedTextColor.DARK_GRAY)));
+        });
+    }
+
+    private void setFeed(Player player, String name, String source) {
+        String billboard = findSpawnedBillboard(name);
+
+        if (billboard == null) {
+            player.sendMessage(Component.text("No billboard found with name: " + name, NamedTextColor.RED));
+            return;
+        }
+
+        if (source.equalsIgnoreCase("stop")) {
+            if (!BillboardManager.getInstance().stopFeed(billboard)) {
+                player.sendMessage(Component.text("That billboard has no feed!", NamedTextColor.RED));
+                return;
+            }
+            player.sendMessage(Component.text("✓ ", NamedTextColor.GREEN)
+                    .append(Component.text("Feed stopped!", NamedTextColor.GRAY)));
+            return;
+        }
+
+        BillboardManager.getInstance().startFeed(billboard, source);
+        player.sendMessage(Component.text("✓ ", NamedTextColor.GREEN)
+                .append(Component.text("Feed started! ", NamedTextColor.GRAY))
+                .append(Component.text("(" + source + ")", NamedTextColor.DARK_GRAY)));
+    }
+
+    private void sendImageFailure(Player player, Throwable error) {
+        if (error instanceof CancellationException) {
+            player.sendMessage(Component.text("✗ ", NamedTextColor.RED)
+                    .append(Component.text("Image loading was cancelled", NamedTextColor.GRAY)));
+        } else if (error instanceof RejectedExecutionException) {
+            player.sendMessage(Component.text("✗ ", NamedTextColor.RED)
+                    .append(Component.text("Too many images are loading, try again in a moment!",
+                            NamedTextColor.GRAY)));
+        } else {
+            player.sendMessage(Component.text("✗ ", NamedTextColor.RED)
+                    .append(Component.text("Failed to load image!", NamedTextColor.GRAY)));
+        }
+    }
+
     private void reloadConfig(Player player) {
         MinhutBillboards.getInstance().reloadConfig();
         BillboardManager.getInstance().reload();
@@ -316,6 +390,99 @@ public class BillboardCommand implements CommandExecutor, TabCompleter {
                 .append(Component.text("Config reloaded!", NamedTextColor.GRAY)));
     }
 
+    private void handleCache(Player player, String[] args) {
+        if (args.length >= 2 && args[1].equalsIgnoreCase("purge")) {
+            int removed = TileCache.purge();
+            int sources = SourceCache.purge();
+            player.sendMessage(Component.text("✓ ", NamedTextColor.GREEN)
+                    .append(Component.text("Purged " + removed + " cached tile sets and " + sources
+                            + " downloaded images", NamedTextColor.GRAY)));
+            return;
+        }
+
+        long sizeKb = TileCache.getSizeBytes() / 1024;
+        player.sendMessage(Component.text("Tile cache: ", NamedTextColor.GOLD)
+                .append(Component.text(sizeKb + " KB", NamedTextColor.YELLOW))
+                .append(Component.text(TileCache.isEnabled() ? "" : " (disabled)", NamedTextColor.GRAY)));
+        player.sendMessage(Component.text("Download cache: ", NamedTextColor.GOLD)
+                .append(Component.text(SourceCache.getSizeBytes() / 1024 + " KB", NamedTextColor.YELLOW)));
+    }
+
+    private void handleStats(Player player, String[] args) {
+        if (args.length >= 2 && args[1].equalsIgnoreCase("reset")) {
+            PipelineMetrics.reset();
+            player.sendMessage(Component.text("✓ ", NamedTextColor.GREEN)
+                    .append(Component.text("Timings reset!", NamedTextColor.GRAY)));
+            return;
+        }
+
+        Map<String, Long> counters = BillboardManager.getInstance().getCounters();
+
+        if (args.length >= 2 && args[1].equalsIgnoreCase("dump")) {
+            File file = new File(MinhutBillboards.getInstance().getDataFolder(), "stats.json");
+            try {
+                Files.writeString(file.toPath(), PipelineMetrics.toJson(counters), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                MinhutBillboards.getInstance().getLogger().severe("Failed to write stats: " + e.getMessage());
+                player.sendMessage(Component.text("✗ ", NamedTextColor.RED)
+                        .append(Component.text("Failed to write stats!", NamedTextColor.GRAY)));
+                return;
+            }
+            player.sendMessage(Component.text("✓ ", NamedTextColor.GREEN)
+                    .append(Component.text("Stats written to " + file.getName(), NamedTextColor.GRAY)));
+            return;
+        }
+
+        player.sendMessage(Component.text("Billboard Stats:", NamedTextColor.GOLD));
+        player.sendMessage(Component.text("  Billboards: ", NamedTextColor.GRAY)
+                .append(Component.text(counters.get("billboards") + " (" + counters.get("billboards_loaded")
+                        + " loaded, " + counters.get("billboards_animated") + " animated)", NamedTextColor.YELLOW)));
+        player.sendMessage(Component.text("  Frames: ", NamedTextColor.GRAY)
+                .append(Component.text(counters.get("frames") + ", tiles: " + counters.get("tiles") + ", maps: "
+                        + counters.get("maps") + " (" + counters.get("free_maps") + " free)", NamedTextColor.YELLOW)));
+        player.sendMessage(Component.text("  Image jobs: ", NamedTextColor.GRAY)
+                .append(Component.text(counters.get("image_jobs") + (counters.get("prewarm_pending") > 0
+                        ? " (" + counters.get("prewarm_pending") + " presets warming)" : ""), NamedTextColor.YELLOW)));
+        long budget = counters.get("map_budget_bytes_per_tick");
+        if (counters.get("feeds") > 0) {
+            player.sendMessage(Component.text("  Feeds: ", NamedTextColor.GRAY)
+                    .append(Component.text(counters.get("feeds") + " (" + counters.get("feed_frames_shown")
+                            + " frames shown, " + counters.get("feed_frames_dropped") + " dropped)",
+                            NamedTextColor.YELLOW)));
+            for (Map.Entry<String, LiveFeed.Stats> feed : BillboardManager.getInstance().getFeedStats().entrySet()) {
+                LiveFeed.Stats stats = feed.getValue();
+                player.sendMessage(Component.text("    " + feed.getKey() + ": ", NamedTextColor.GRAY)
+                        .append(Component.text(String.format(Locale.ROOT, "%.1f fps, %d shown, %d dropped%s",
+                                stats.fps(), stats.framesShown(), stats.framesDropped(),
+                                stats.paused() ? " (paused)" : ""), NamedTextColor.YELLOW)));
+            }
+        }
+        player.sendMessage(Component.text("  Map sends: ", NamedTextColor.GRAY)
+                .append(Component.text(counters.get("map_renders_sent") + " (" + counters.get("map_bytes_sent") / 1024
+                        + " KB), " + counters.get("map_renders_deferred") + " deferred, "
+                        + counters.get("map_renders_waiting") + " waiting, budget "
+                        + (budget > 0 ? budget / 1024 + " KB/tick" : "off"), NamedTextColor.YELLOW)));
+        player.sendMessage(Component.text("  Memory: ", NamedTextColor.GRAY)
+                .append(Component.text(counters.get("arena_tiles") + " tiles in " + counters.get("arena_bytes") / 1024
+                        / 1024 + " MB off-heap, heap " + counters.get("heap_used_bytes") / 1024 / 1024 + " MB, "
+                        + counters.get("gc_count") + " GCs (" + counters.get("gc_time_ms") + " ms)",
+                        NamedTextColor.YELLOW)));
+        player.sendMessage(Component.text("  Cached: ", NamedTextColor.GRAY)
+                .append(Component.text(counters.get("tile_cache_bytes") / 1024 + " KB tiles, "
+                        + counters.get("download_cache_bytes") / 1024 + " KB downloads", NamedTextColor.YELLOW)));
+
+        player.sendMessage(Component.text("Timings (count, p50 / p95 / max ms):", NamedTextColor.GOLD));
+        for (PipelineMetrics.Stage stage : PipelineMetrics.Stage.values()) {
+            PipelineMetrics.Summary summary = PipelineMetrics.summarize(stage);
+            if (summary.count() == 0) {
+                continue;
+            }
+            player.sendMessage(Component.text("  " + stage.getId() + ": ", NamedTextColor.GRAY)
+                    .append(Component.text(String.format(Locale.ROOT, "%d, %.1f / %.1f / %.1f", summary.count(),
+                            summary.p50Millis(), summary.p95Millis(), summary.maxMillis()), NamedTextColor.YELLOW)));
+        }
+    }
+
     private void sendUsage(Player player) {
         player.sendMessage(Component.text("Billboard Commands:", NamedTextColor.GOLD));
         player.sendMessage(Component.text("  /billboard spawn <name>", NamedTextColor.YELLOW)
@@ -324,9 +491,17 @@ public class BillboardCommand implements CommandExecutor, TabCompleter {
                 .append(Component.text(" - Undo last billboard", NamedTextColor.GRAY)));
         player.sendMessage(Component.text("  /billboard remove <name>", NamedTextColor.YELLOW)
                 .append(Component.text(" - Remove a spawned billboard", NamedTextColor.GRAY)));
+        player.sendMessage(Component.text("  /billboard update <name> <image>", NamedTextColor.YELLOW)
+                .append(Component.text(" - Change a spawned billboard's image", NamedTextColor.GRAY)));
+        player.sendMessage(Component.text("  /billboard feed <name> <source|stop>", NamedTextColor.YELLOW)
+                .append(Component.text(" - Show a live feed on a spawned billboard", NamedTextColor.GRAY)));
         player.sendMessage(Component.text("  /billboard list", NamedTextColor.YELLOW)
                 .append(Component.text(" - List available billboards", NamedTextColor.GRAY)));
         player.sendMessage(Component.text("  /billboard reload", NamedTextColor.YELLOW)
                 .append(Component.text(" - Reload config", NamedTextColor.GRAY)));
+        player.sendMessage(Component.text("  /billboard cache [purge]", NamedTextColor.YELLOW)
+                .append(Component.text(" - Show or clear the caches", NamedTextColor.GRAY)));
+        player.sendMessage(Component.text("  /billboard stats [dump|reset]", NamedTextColor.YELLOW)
+                .append(Component.text(" - Show timings and counts", NamedTextColor.GRAY)));
     }
 }
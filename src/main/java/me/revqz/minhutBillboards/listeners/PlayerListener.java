@@ -0,0 +1,14 @@
+package me.revqz.minhutBillboards.listeners;
+
+import me.revqz.minhutBillboards.billboard.BillboardManager;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+public class PlayerListener implements Listener {
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        BillboardManager.getInstance().handlePlayerQuit(event.getPlayer());
+    }
+}
@@ -0,0 +1,72 @@
+package me.revqz.minhutBillboards.billboard;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColorDitheringTest {
+
+    /** Every third level per channel, plus 255, so each lookup cell is visited. */
+    private static final int STEP = 3;
+
+    @Test
+    void lookupTableStaysWithinToleranceOfExactMatch() {
+        double tolerance = ColorDithering.lookupTolerance() + 1e-9;
+
+        for (int r = 0; r <= 255; r = next(r)) {
+            for (int g = 0; g <= 255; g = next(g)) {
+                for (int b = 0; b <= 255; b = next(b)) {
+                    double lookup = ColorDithering.colorDistance(r, g, b, ColorDithering.findClosestColor(r, g, b));
+                    double exact = ColorDithering.colorDistance(r, g, b,
+                            ColorDithering.findClosestColorExact(r, g, b));
+                    double excess = lookup - exact;
+
+                    int red = r;
+                    int green = g;
+                    int blue = b;
+                    assertTrue(excess <= tolerance, () -> "Colour " + red + "," + green + "," + blue + " is "
+                            + excess + " further than the exact match, tolerance " + tolerance);
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 4, 8})
+    void parallelDitheringMatchesSerialPass(int threads) {
+        BufferedImage image = noisyGradient(6 * ImageLoader.MAP_SIZE, 5 * ImageLoader.MAP_SIZE);
+
+        for (ColorDithering.ColorMatching matching : ColorDithering.ColorMatching.values()) {
+            byte[] serial = ColorDithering.applyFloydSteinbergDithering(image, matching);
+            byte[] parallel = ColorDithering.applyFloydSteinbergDithering(image, threads, matching);
+            assertArrayEquals(serial, parallel, threads + " threads differ from the serial pass with " + matching);
+        }
+    }
+
+    /**
+     * Gradient with noise on top, so error diffusion carries across every row.
+     */
+    private static BufferedImage noisyGradient(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int r = Math.min(255, x * 255 / width + random.nextInt(24));
+                int g = Math.min(255, y * 255 / height + random.nextInt(24));
+                int b = Math.min(255, (x + y) * 255 / (width + height) + random.nextInt(24));
+                image.setRGB(x, y, r << 16 | g << 8 | b);
+            }
+        }
+        return image;
+    }
+
+    private static int next(int level) {
+        return level == 255 ? 256 : Math.min(255, level + STEP);
+    }
+}
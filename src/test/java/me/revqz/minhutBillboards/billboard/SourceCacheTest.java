@@ -0,0 +1,123 @@
+package me.revqz.minhutBillboards.billboard;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SourceCacheTest {
+
+    private static final byte[] IMAGE = "not really a png".getBytes(StandardCharsets.UTF_8);
+    private static final long MAX_BYTES = 1024 * 1024;
+    private static final Logger LOGGER = Logger.getLogger(SourceCacheTest.class.getName());
+
+    private static final CountDownLatch RELEASE_STALLED = new CountDownLatch(1);
+    private static final AtomicInteger NOT_MODIFIED = new AtomicInteger();
+
+    private static HttpServer server;
+    private static ExecutorService serverThreads;
+    private static File cacheFolder;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+
+        // Sends the headers and a few bytes of the body, then stops sending.
+        server.createContext("/stall", exchange -> {
+            exchange.sendResponseHeaders(200, MAX_BYTES / 2);
+            OutputStream body = exchange.getResponseBody();
+            body.write(IMAGE);
+            body.flush();
+            try {
+                RELEASE_STALLED.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+
+        server.createContext("/etag", exchange -> {
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                NOT_MODIFIED.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().set("ETag", "\"v1\"");
+            exchange.sendResponseHeaders(200, IMAGE.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(IMAGE);
+            }
+        });
+
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.start();
+        cacheFolder = Files.createTempDirectory("source-cache").toFile();
+    }
+
+    @AfterAll
+    static void stopServer() throws IOException, InterruptedException {
+        RELEASE_STALLED.countDown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+        serverThreads.awaitTermination(5, TimeUnit.SECONDS);
+        TimerPool.shutdown();
+        try (Stream<Path> files = Files.walk(cacheFolder.toPath())) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    void stalledBodyFailsAtTheDeadline() {
+        IOException error = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(IOException.class,
+                () -> SourceCache.fetch(uri("/stall"), null, MAX_BYTES, Duration.ofSeconds(1), LOGGER)));
+        assertTrue(error.getMessage().startsWith("Timed out"), error::getMessage);
+    }
+
+    @Test
+    void stalledBodyFailsAtTheDeadlineWhenCaching() {
+        IOException error = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(IOException.class,
+                () -> SourceCache.fetch(uri("/stall"), cacheFolder, MAX_BYTES, Duration.ofSeconds(1), LOGGER)));
+        assertTrue(error.getMessage().startsWith("Timed out"), error::getMessage);
+    }
+
+    @Test
+    void unchangedSourceIsServedFromTheCache() throws IOException {
+        byte[] first = SourceCache.fetch(uri("/etag"), cacheFolder, MAX_BYTES, Duration.ofSeconds(5), LOGGER);
+        int before = NOT_MODIFIED.get();
+        byte[] second = SourceCache.fetch(uri("/etag"), cacheFolder, MAX_BYTES, Duration.ofSeconds(5), LOGGER);
+
+        assertArrayEquals(IMAGE, first);
+        assertArrayEquals(IMAGE, second);
+        assertEquals(before + 1, NOT_MODIFIED.get());
+    }
+
+    private static URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+}